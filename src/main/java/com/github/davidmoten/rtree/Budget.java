@@ -0,0 +1,87 @@
+package com.github.davidmoten.rtree;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * Limits on the work done by a search (see
+ * {@link RTree#search(Query, Budget)}). A search stops when it has opened
+ * <code>maxNodes</code> nodes or when <code>timeout</code> has elapsed since it
+ * started, whichever comes first, and reports the entries found so far. The
+ * clock is only read every few nodes so the timeout may be overrun by the time
+ * taken to search those nodes.
+ */
+public final class Budget {
+
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final long maxNodes;
+    private final long timeoutNanos;
+
+    private Budget(long maxNodes, long timeoutNanos) {
+        Preconditions.checkArgument(maxNodes >= 0, "maxNodes cannot be negative");
+        Preconditions.checkArgument(timeoutNanos >= 0, "timeout cannot be negative");
+        this.maxNodes = maxNodes;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * Returns a budget limited to opening <code>maxNodes</code> nodes.
+     * 
+     * @param maxNodes
+     *            max number of nodes (leaf or non-leaf) whose children or entries
+     *            are examined
+     * @return budget
+     */
+    public static Budget maxNodes(long maxNodes) {
+        return new Budget(maxNodes, UNLIMITED);
+    }
+
+    /**
+     * Returns a budget limited by time from the start of the search.
+     * 
+     * @param duration
+     *            time allowed for the search
+     * @param unit
+     *            unit of duration
+     * @return budget
+     */
+    public static Budget timeout(long duration, TimeUnit unit) {
+        return new Budget(UNLIMITED, unit.toNanos(duration));
+    }
+
+    /**
+     * Returns a budget limited by both the number of nodes opened and time from
+     * the start of the search.
+     * 
+     * @param maxNodes
+     *            max number of nodes whose children or entries are examined
+     * @param duration
+     *            time allowed for the search
+     * @param unit
+     *            unit of duration
+     * @return budget
+     */
+    public static Budget create(long maxNodes, long duration, TimeUnit unit) {
+        return new Budget(maxNodes, unit.toNanos(duration));
+    }
+
+    public long maxNodes() {
+        return maxNodes;
+    }
+
+    public long timeoutNanos() {
+        return timeoutNanos;
+    }
+
+    boolean hasTimeout() {
+        return timeoutNanos != UNLIMITED;
+    }
+
+    @Override
+    public String toString() {
+        return "Budget [maxNodes=" + maxNodes + ", timeoutNanos=" + timeoutNanos + "]";
+    }
+
+}
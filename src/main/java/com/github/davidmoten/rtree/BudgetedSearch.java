@@ -0,0 +1,101 @@
+package com.github.davidmoten.rtree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.Conditions;
+
+import rx.functions.Func1;
+
+/**
+ * Synchronous depth-first search that stops when a {@link Budget} runs out.
+ * Nodes are counted as they are opened and the clock is read every
+ * {@link #CLOCK_CHECK_INTERVAL} nodes so the checks cost little next to the
+ * search itself.
+ * 
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+final class BudgetedSearch<T, S extends Geometry> {
+
+    // power of 2 so the check is a mask
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+
+    private final Func1<? super Geometry, Boolean> condition;
+    private final long maxNodes;
+    private final boolean hasTimeout;
+    private final long deadlineNanos;
+    private final List<Entry<T, S>> entries = new ArrayList<Entry<T, S>>();
+    private long nodes;
+
+    private BudgetedSearch(Func1<? super Geometry, Boolean> condition, Budget budget) {
+        this.condition = condition;
+        this.maxNodes = budget.maxNodes();
+        this.hasTimeout = budget.hasTimeout();
+        this.deadlineNanos = hasTimeout ? System.nanoTime() + budget.timeoutNanos() : 0;
+    }
+
+    static <T, S extends Geometry> SearchResult<T, S> search(Node<T, S> root,
+            Func1<? super Geometry, Boolean> condition, Budget budget) {
+        BudgetedSearch<T, S> search = new BudgetedSearch<T, S>(condition, budget);
+        boolean complete = search.search(root, false);
+        return new SearchResult<T, S>(search.entries, complete);
+    }
+
+    /**
+     * Searches below the node and returns false if the budget ran out.
+     */
+    private boolean search(Node<T, S> node, boolean covered) {
+        if (!covered) {
+            Rectangle mbr = node.geometry().mbr();
+            if (Conditions.covers(condition, mbr)) {
+                // nothing below a covered node is tested
+                covered = true;
+            } else if (!Conditions.mayMatchWithin(condition, mbr)) {
+                return true;
+            }
+        }
+        if (!open()) {
+            return false;
+        }
+        if (node instanceof Leaf) {
+            Leaf<T, S> leaf = (Leaf<T, S>) node;
+            int count = leaf.count();
+            for (int i = 0; i < count; i++) {
+                Entry<T, S> entry = leaf.entry(i);
+                if (covered || condition.call(entry.geometry())) {
+                    entries.add(entry);
+                }
+            }
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            int count = nonLeaf.count();
+            for (int i = 0; i < count; i++) {
+                if (!search(nonLeaf.child(i), covered)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts a node about to be opened, returns false if the budget does not
+     * allow it.
+     */
+    private boolean open() {
+        if (nodes == maxNodes) {
+            return false;
+        } else if (hasTimeout && (nodes & (CLOCK_CHECK_INTERVAL - 1)) == 0
+                && System.nanoTime() - deadlineNanos >= 0) {
+            return false;
+        }
+        nodes++;
+        return true;
+    }
+
+}
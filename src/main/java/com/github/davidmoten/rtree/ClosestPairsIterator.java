@@ -0,0 +1,159 @@
+package com.github.davidmoten.rtree;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+
+import rx.functions.Func2;
+
+/**
+ * Returns the k closest pairs of entries of two R-trees in ascending order of
+ * distance using the incremental distance join of Hjaltason and Samet. Pairs of
+ * nodes and pairs of entries share a single priority queue keyed by distance
+ * (the distance between the minimum bounding rectangles for a pair of nodes),
+ * and a pair of nodes is only expanded when it reaches the head of the queue.
+ *
+ * <p>
+ * The distances of the k closest pairs of entries queued so far are kept in a
+ * bounded max-heap. Once k pairs have been queued nothing at least as far
+ * apart as the largest of them can be among the k closest, so such pairs are
+ * never queued.
+ *
+ * @param <T>
+ *            value type of the first tree
+ * @param <S>
+ *            geometry type of the first tree
+ * @param <T2>
+ *            value type of the second tree
+ * @param <S2>
+ *            geometry type of the second tree
+ */
+final class ClosestPairsIterator<T, S extends Geometry, T2, S2 extends Geometry>
+        implements Iterator<EntryPair<T, S, T2, S2>> {
+
+    private final Func2<? super S, ? super S2, Double> distance;
+    private final int k;
+    private final PriorityQueue<Item<T, S, T2, S2>> queue = new PriorityQueue<Item<T, S, T2, S2>>();
+    private final PriorityQueue<Double> best;
+    private long sequence;
+    private int remaining;
+
+    ClosestPairsIterator(Node<T, S> a, Node<T2, S2> b,
+            Func2<? super S, ? super S2, Double> distance, int k) {
+        this.distance = distance;
+        this.k = k;
+        this.remaining = k;
+        this.best = new PriorityQueue<Double>(k + 1, Collections.reverseOrder());
+        offer(a, b);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (remaining == 0) {
+            return false;
+        }
+        // expand node pairs until an entry pair is at the head of the queue
+        while (!queue.isEmpty()) {
+            Item<T, S, T2, S2> item = queue.peek();
+            if (item.pair != null) {
+                return true;
+            }
+            queue.poll();
+            expand(item.a, item.b);
+        }
+        return false;
+    }
+
+    @Override
+    public EntryPair<T, S, T2, S2> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        remaining--;
+        return queue.poll().pair;
+    }
+
+    private void expand(Node<T, S> a, Node<T2, S2> b) {
+        if (a instanceof Leaf && b instanceof Leaf) {
+            Leaf<T, S> leafA = (Leaf<T, S>) a;
+            Leaf<T2, S2> leafB = (Leaf<T2, S2>) b;
+            for (int i = 0; i < leafA.count(); i++) {
+                Entry<T, S> entryA = leafA.entry(i);
+                for (int j = 0; j < leafB.count(); j++) {
+                    Entry<T2, S2> entryB = leafB.entry(j);
+                    double d = distance.call(entryA.geometry(), entryB.geometry());
+                    if (d < bound()) {
+                        queue.offer(new Item<T, S, T2, S2>(d, null, null,
+                                new EntryPair<T, S, T2, S2>(entryA, entryB), sequence++));
+                        best.offer(d);
+                        if (best.size() > k) {
+                            best.poll();
+                        }
+                    }
+                }
+            }
+        } else if (b instanceof Leaf || (a instanceof NonLeaf && a.geometry().mbr()
+                .area() >= b.geometry().mbr().area())) {
+            // open the larger node (or the only non-leaf) so that the pairs of
+            // nodes queued stay of similar size
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) a;
+            for (int i = 0; i < nonLeaf.count(); i++) {
+                offer(nonLeaf.child(i), b);
+            }
+        } else {
+            NonLeaf<T2, S2> nonLeaf = (NonLeaf<T2, S2>) b;
+            for (int i = 0; i < nonLeaf.count(); i++) {
+                offer(a, nonLeaf.child(i));
+            }
+        }
+    }
+
+    private void offer(Node<T, S> a, Node<T2, S2> b) {
+        double d = a.geometry().mbr().distance(b.geometry().mbr());
+        if (d < bound()) {
+            queue.offer(new Item<T, S, T2, S2>(d, a, b, null, sequence++));
+        }
+    }
+
+    private double bound() {
+        return best.size() < k ? Double.POSITIVE_INFINITY : best.peek();
+    }
+
+    private static final class Item<T, S extends Geometry, T2, S2 extends Geometry>
+            implements Comparable<Item<T, S, T2, S2>> {
+
+        final double distance;
+        final Node<T, S> a;
+        final Node<T2, S2> b;
+        final EntryPair<T, S, T2, S2> pair;
+        final long sequence;
+
+        Item(double distance, Node<T, S> a, Node<T2, S2> b, EntryPair<T, S, T2, S2> pair,
+                long sequence) {
+            this.distance = distance;
+            this.a = a;
+            this.b = b;
+            this.pair = pair;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Item<T, S, T2, S2> o) {
+            int value = Double.compare(distance, o.distance);
+            if (value != 0) {
+                return value;
+            }
+            // at equal distance report entry pairs before expanding node pairs
+            if (pair != null && o.pair == null) {
+                return -1;
+            } else if (pair == null && o.pair != null) {
+                return 1;
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.github.davidmoten.rtree;
 
+import java.util.Optional;
+
 import com.github.davidmoten.guavamini.Preconditions;
 import com.github.davidmoten.rtree.geometry.Geometry;
 
@@ -15,6 +17,7 @@ public final class Context<T, S extends Geometry> {
     private final Splitter splitter;
     private final Selector selector;
     private final Factory<T, S> factory;
+    private final Monoid<? super T, ?> monoid;
 
     /**
      * Constructor.
@@ -32,17 +35,40 @@ public final class Context<T, S extends Geometry> {
      */
     public Context(int minChildren, int maxChildren, Selector selector, Splitter splitter,
             Factory<T, S> factory) {
+        this(minChildren, maxChildren, selector, splitter, factory, Optional.empty());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param minChildren
+     *            minimum number of children per node (at least 1)
+     * @param maxChildren
+     *            max number of children per node (minimum is 3)
+     * @param selector
+     *            algorithm to select search path
+     * @param splitter
+     *            algorithm to split the children across two new nodes
+     * @param factory
+     *            node creation factory
+     * @param monoid
+     *            summary of entry values to cache in every node if present
+     */
+    public Context(int minChildren, int maxChildren, Selector selector, Splitter splitter,
+            Factory<T, S> factory, Optional<? extends Monoid<? super T, ?>> monoid) {
         Preconditions.checkNotNull(splitter);
         Preconditions.checkNotNull(selector);
         Preconditions.checkArgument(maxChildren > 2);
         Preconditions.checkArgument(minChildren >= 1);
         Preconditions.checkArgument(minChildren < maxChildren);
         Preconditions.checkNotNull(factory);
+        Preconditions.checkNotNull(monoid);
         this.selector = selector;
         this.maxChildren = maxChildren;
         this.minChildren = minChildren;
         this.splitter = splitter;
         this.factory = factory;
+        this.monoid = monoid.orElse(null);
     }
 
     public int maxChildren() {
@@ -65,4 +91,8 @@ public final class Context<T, S extends Geometry> {
         return factory;
     }
 
+    public Optional<Monoid<? super T, ?>> monoid() {
+        return Optional.ofNullable(monoid);
+    }
+
 }
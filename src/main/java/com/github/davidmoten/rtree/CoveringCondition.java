@@ -0,0 +1,30 @@
+package com.github.davidmoten.rtree;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+import rx.functions.Func1;
+
+/**
+ * A search condition that can also prove that it holds for everything within a
+ * rectangle. When a search reaches a node whose minimum bounding rectangle is
+ * covered then every entry below that node is emitted without further tests.
+ *
+ * <p>
+ * {@code covers(r)} must imply that {@code call(g)} is true for every
+ * {@link Geometry} g whose minimum bounding rectangle lies within r.
+ */
+public interface CoveringCondition extends Func1<Geometry, Boolean> {
+
+    /**
+     * Returns true only if the condition is satisfied by every geometry whose
+     * minimum bounding rectangle lies within the given rectangle. Returning false
+     * is always safe.
+     *
+     * @param r
+     *            minimum bounding rectangle of a node
+     * @return true if the condition holds for everything within r
+     */
+    boolean covers(Rectangle r);
+
+}
@@ -0,0 +1,62 @@
+package com.github.davidmoten.rtree;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.internal.util.ObjectsHelper;
+
+/**
+ * A pair of entries produced by a join of two R-trees (see
+ * {@link RTree#join(RTree, rx.functions.Func2)}), the first from the tree the
+ * join was called on and the second from the other tree.
+ * 
+ * @param <T>
+ *            value type of the first entry
+ * @param <S>
+ *            geometry type of the first entry
+ * @param <T2>
+ *            value type of the second entry
+ * @param <S2>
+ *            geometry type of the second entry
+ */
+public final class EntryPair<T, S extends Geometry, T2, S2 extends Geometry> {
+
+    private final Entry<T, S> entry1;
+    private final Entry<T2, S2> entry2;
+
+    EntryPair(Entry<T, S> entry1, Entry<T2, S2> entry2) {
+        this.entry1 = entry1;
+        this.entry2 = entry2;
+    }
+
+    public Entry<T, S> entry1() {
+        return entry1;
+    }
+
+    public Entry<T2, S2> entry2() {
+        return entry2;
+    }
+
+    @Override
+    public String toString() {
+        return "EntryPair [entry1=" + entry1 + ", entry2=" + entry2 + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entry1, entry2);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        @SuppressWarnings("rawtypes")
+        Optional<EntryPair> other = ObjectsHelper.asClass(obj, EntryPair.class);
+        if (other.isPresent()) {
+            return Objects.equals(entry1, other.get().entry1)
+                    && Objects.equals(entry2, other.get().entry2);
+        } else
+            return false;
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.github.davidmoten.rtree;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+
+/**
+ * Receives entries synchronously from a search (see
+ * {@link RTree#search(com.github.davidmoten.rtree.geometry.Rectangle, EntryVisitor)}
+ * and {@link RTree#visit(rx.functions.Func1, EntryVisitor)}) and decides whether
+ * the search should continue.
+ *
+ * @param <T>
+ *            the entry value type
+ * @param <S>
+ *            the entry geometry type
+ */
+@FunctionalInterface
+public interface EntryVisitor<T, S extends Geometry> {
+
+    /**
+     * Called for each entry found by the search.
+     *
+     * @param entry
+     *            the entry found
+     * @return true to continue the search, false to stop it
+     */
+    boolean visit(Entry<T, S> entry);
+
+}
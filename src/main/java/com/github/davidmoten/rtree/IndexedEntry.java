@@ -0,0 +1,76 @@
+package com.github.davidmoten.rtree;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.internal.util.ObjectsHelper;
+
+/**
+ * An {@link Entry} found by one of several queries searched together, tagged
+ * with the (0-based) index of that query.
+ * 
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+public final class IndexedEntry<T, S extends Geometry> {
+
+    private final int index;
+    private final Entry<T, S> entry;
+
+    /**
+     * Constructor.
+     * 
+     * @param index
+     *            index of the query that matched the entry
+     * @param entry
+     *            the matching entry
+     */
+    public IndexedEntry(int index, Entry<T, S> entry) {
+        Preconditions.checkNotNull(entry);
+        this.index = index;
+        this.entry = entry;
+    }
+
+    /**
+     * Returns the index of the query that matched the entry.
+     * 
+     * @return query index
+     */
+    public int index() {
+        return index;
+    }
+
+    /**
+     * Returns the matching entry.
+     * 
+     * @return entry
+     */
+    public Entry<T, S> entry() {
+        return entry;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedEntry [index=" + index + ", entry=" + entry + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, entry);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        @SuppressWarnings("rawtypes")
+        Optional<IndexedEntry> other = ObjectsHelper.asClass(obj, IndexedEntry.class);
+        if (other.isPresent()) {
+            return index == other.get().index && Objects.equals(entry, other.get().entry);
+        } else
+            return false;
+    }
+
+}
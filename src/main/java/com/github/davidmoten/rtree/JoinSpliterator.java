@@ -0,0 +1,280 @@
+package com.github.davidmoten.rtree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+import rx.functions.Func2;
+
+/**
+ * Spatial join of two R-trees by synchronized traversal (Brinkhoff, Kriegel
+ * and Seeger). Work is held as a deque of node pairs still to be joined and a
+ * pair of nodes is only opened when the node condition holds for their minimum
+ * bounding rectangles. Before two nodes are joined their children are
+ * restricted to those meeting the other node's mbr, so most child pairs are
+ * never tested. {@link #trySplit()} hands over whole node pairs so that
+ * parallel streams join disjoint parts of the trees concurrently on the
+ * fork/join pool.
+ *
+ * <p>
+ * In a self-join both trees are the same tree and each unordered pair of
+ * distinct entries is reported once: a node is joined with itself by joining
+ * each child with itself and with the children after it.
+ *
+ * @param <T>
+ *            value type of the first tree
+ * @param <S>
+ *            geometry type of the first tree
+ * @param <T2>
+ *            value type of the second tree
+ * @param <S2>
+ *            geometry type of the second tree
+ */
+final class JoinSpliterator<T, S extends Geometry, T2, S2 extends Geometry>
+        implements Spliterator<EntryPair<T, S, T2, S2>> {
+
+    private final Func2<? super Rectangle, ? super Rectangle, Boolean> nodeCondition;
+    private final Func2<? super S, ? super S2, Boolean> entryCondition;
+
+    // node pairs still to be joined, the head of the deque is joined next
+    private final Deque<Task<T, S, T2, S2>> tasks;
+
+    // matches found but not yet emitted
+    private final Deque<EntryPair<T, S, T2, S2>> matches = new ArrayDeque<EntryPair<T, S, T2, S2>>();
+
+    private long estimatedSize;
+
+    /**
+     * Constructor.
+     *
+     * @param a
+     *            root of the first tree
+     * @param b
+     *            root of the second tree
+     * @param nodeCondition
+     *            condition on the minimum bounding rectangles of a pair of nodes
+     *            that must hold if anything inside them can match, also used
+     *            to prefilter entry pairs by their mbrs
+     * @param entryCondition
+     *            condition on the geometries of a pair of entries
+     * @param estimatedSize
+     *            estimate of the number of matches
+     */
+    JoinSpliterator(Node<T, S> a, Node<T2, S2> b,
+            Func2<? super Rectangle, ? super Rectangle, Boolean> nodeCondition,
+            Func2<? super S, ? super S2, Boolean> entryCondition, long estimatedSize) {
+        this(new ArrayDeque<Task<T, S, T2, S2>>(), nodeCondition, entryCondition, estimatedSize);
+        if (nodeCondition.call(a.geometry().mbr(), b.geometry().mbr())) {
+            tasks.push(new Task<T, S, T2, S2>(a, b, false));
+        }
+    }
+
+    /**
+     * Returns a spliterator over each unordered pair of distinct entries in the
+     * tree with the given root that satisfies the conditions.
+     */
+    static <T, S extends Geometry> JoinSpliterator<T, S, T, S> self(Node<T, S> root,
+            Func2<? super Rectangle, ? super Rectangle, Boolean> nodeCondition,
+            Func2<? super S, ? super S, Boolean> entryCondition, long estimatedSize) {
+        JoinSpliterator<T, S, T, S> result = new JoinSpliterator<T, S, T, S>(
+                new ArrayDeque<Task<T, S, T, S>>(), nodeCondition, entryCondition,
+                estimatedSize);
+        result.tasks.push(new Task<T, S, T, S>(root, root, true));
+        return result;
+    }
+
+    private JoinSpliterator(Deque<Task<T, S, T2, S2>> tasks,
+            Func2<? super Rectangle, ? super Rectangle, Boolean> nodeCondition,
+            Func2<? super S, ? super S2, Boolean> entryCondition, long estimatedSize) {
+        this.tasks = tasks;
+        this.nodeCondition = nodeCondition;
+        this.entryCondition = entryCondition;
+        this.estimatedSize = estimatedSize;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super EntryPair<T, S, T2, S2>> action) {
+        while (matches.isEmpty()) {
+            if (tasks.isEmpty()) {
+                return false;
+            }
+            join(tasks.pop());
+        }
+        action.accept(matches.poll());
+        return true;
+    }
+
+    private void join(Task<T, S, T2, S2> task) {
+        if (task.self) {
+            joinSelf(task.a);
+        } else if (task.a instanceof Leaf && task.b instanceof Leaf) {
+            joinLeaves((Leaf<T, S>) task.a, (Leaf<T2, S2>) task.b);
+        } else {
+            expand(task.a, task.b);
+        }
+    }
+
+    private void expand(Node<T, S> a, Node<T2, S2> b) {
+        Rectangle mbrA = a.geometry().mbr();
+        Rectangle mbrB = b.geometry().mbr();
+        // when the nodes are at different depths only the deeper subtree is
+        // opened
+        List<Node<T, S>> as = new ArrayList<Node<T, S>>();
+        if (a instanceof NonLeaf) {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) a;
+            for (int i = 0; i < nonLeaf.count(); i++) {
+                Node<T, S> child = nonLeaf.child(i);
+                if (nodeCondition.call(child.geometry().mbr(), mbrB)) {
+                    as.add(child);
+                }
+            }
+        } else {
+            as.add(a);
+        }
+        List<Node<T2, S2>> bs = new ArrayList<Node<T2, S2>>();
+        if (b instanceof NonLeaf) {
+            NonLeaf<T2, S2> nonLeaf = (NonLeaf<T2, S2>) b;
+            for (int i = 0; i < nonLeaf.count(); i++) {
+                Node<T2, S2> child = nonLeaf.child(i);
+                if (nodeCondition.call(mbrA, child.geometry().mbr())) {
+                    bs.add(child);
+                }
+            }
+        } else {
+            bs.add(b);
+        }
+        // push in reverse so that pairs are joined in order
+        for (int i = as.size() - 1; i >= 0; i--) {
+            Node<T, S> childA = as.get(i);
+            Rectangle childMbrA = childA.geometry().mbr();
+            for (int j = bs.size() - 1; j >= 0; j--) {
+                Node<T2, S2> childB = bs.get(j);
+                if (nodeCondition.call(childMbrA, childB.geometry().mbr())) {
+                    tasks.push(new Task<T, S, T2, S2>(childA, childB, false));
+                }
+            }
+        }
+    }
+
+    private void joinLeaves(Leaf<T, S> a, Leaf<T2, S2> b) {
+        Rectangle mbrA = a.geometry().mbr();
+        Rectangle mbrB = b.geometry().mbr();
+        // restrict both sides to the entries that can meet the other leaf
+        List<Entry<T2, S2>> bs = new ArrayList<Entry<T2, S2>>(b.count());
+        for (int j = 0; j < b.count(); j++) {
+            Entry<T2, S2> entry = b.entry(j);
+            if (nodeCondition.call(mbrA, entry.geometry().mbr())) {
+                bs.add(entry);
+            }
+        }
+        if (bs.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < a.count(); i++) {
+            Entry<T, S> entryA = a.entry(i);
+            Rectangle entryMbrA = entryA.geometry().mbr();
+            if (nodeCondition.call(entryMbrA, mbrB)) {
+                for (Entry<T2, S2> entryB : bs) {
+                    if (nodeCondition.call(entryMbrA, entryB.geometry().mbr())
+                            && entryCondition.call(entryA.geometry(), entryB.geometry())) {
+                        matches.offer(new EntryPair<T, S, T2, S2>(entryA, entryB));
+                    }
+                }
+            }
+        }
+    }
+
+    // only called for a self-join where T2 = T and S2 = S
+    @SuppressWarnings("unchecked")
+    private void joinSelf(Node<T, S> node) {
+        if (node instanceof Leaf) {
+            Leaf<T, S> leaf = (Leaf<T, S>) node;
+            int count = leaf.count();
+            for (int i = 0; i < count; i++) {
+                Entry<T, S> entryA = leaf.entry(i);
+                Rectangle mbrA = entryA.geometry().mbr();
+                for (int j = i + 1; j < count; j++) {
+                    Entry<T2, S2> entryB = (Entry<T2, S2>) leaf.entry(j);
+                    if (nodeCondition.call(mbrA, entryB.geometry().mbr())
+                            && entryCondition.call(entryA.geometry(), entryB.geometry())) {
+                        matches.offer(new EntryPair<T, S, T2, S2>(entryA, entryB));
+                    }
+                }
+            }
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            int count = nonLeaf.count();
+            // push in reverse so that pairs are joined in order
+            for (int i = count - 1; i >= 0; i--) {
+                Node<T, S> childA = nonLeaf.child(i);
+                Rectangle mbrA = childA.geometry().mbr();
+                for (int j = count - 1; j > i; j--) {
+                    Node<T2, S2> childB = (Node<T2, S2>) nonLeaf.child(j);
+                    if (nodeCondition.call(mbrA, childB.geometry().mbr())) {
+                        tasks.push(new Task<T, S, T2, S2>(childA, childB, false));
+                    }
+                }
+                tasks.push(new Task<T, S, T2, S2>(childA, (Node<T2, S2>) childA, true));
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<EntryPair<T, S, T2, S2>> trySplit() {
+        // if a single pair of nodes is pending then open it up so that the pairs
+        // of its children can be shared out
+        while (tasks.size() == 1 && !(tasks.peek().a instanceof Leaf
+                && (tasks.peek().self || tasks.peek().b instanceof Leaf))) {
+            Task<T, S, T2, S2> task = tasks.pop();
+            if (task.self) {
+                joinSelf(task.a);
+            } else {
+                expand(task.a, task.b);
+            }
+        }
+        int n = tasks.size();
+        if (n < 2) {
+            return null;
+        }
+        // hand over the half of the pending pairs that would be joined last
+        Deque<Task<T, S, T2, S2>> other = new ArrayDeque<Task<T, S, T2, S2>>(n / 2);
+        for (int i = 0; i < n / 2; i++) {
+            other.push(tasks.pollLast());
+        }
+        estimatedSize = estimatedSize >>> 1;
+        return new JoinSpliterator<T, S, T2, S2>(other, nodeCondition, entryCondition,
+                estimatedSize);
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimatedSize;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL | IMMUTABLE;
+    }
+
+    private static final class Task<T, S extends Geometry, T2, S2 extends Geometry> {
+
+        final Node<T, S> a;
+        final Node<T2, S2> b;
+
+        // true if a and b are the same node of a self-join
+        final boolean self;
+
+        Task(Node<T, S> a, Node<T2, S2> b, boolean self) {
+            this.a = a;
+            this.b = b;
+            this.self = self;
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package com.github.davidmoten.rtree;
 import java.util.List;
 
 import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.internal.LeafHelper;
 
 public interface Leaf<T, S extends Geometry> extends Node<T, S> {
 
@@ -19,4 +20,19 @@ public interface Leaf<T, S extends Geometry> extends Node<T, S> {
      */
     Entry<T, S> entry(int i);
 
-}
\ No newline at end of file
+    /**
+     * Returns the summary of the entry values in this leaf. Implementations may
+     * cache the summary for the monoid of {@link Context#monoid()}. This default
+     * implementation visits every entry.
+     * 
+     * @param monoid
+     *            summarises entry values
+     * @param <A>
+     *            the summary type
+     * @return summary of the entry values in this leaf
+     */
+    default <A> A aggregate(Monoid<? super T, A> monoid) {
+        return LeafHelper.aggregate(this, monoid);
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.github.davidmoten.rtree;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+import rx.functions.Func1;
+import rx.functions.Func2;
+
+/**
+ * Summarises entry values for range aggregate queries (see
+ * {@link RTree#aggregate(com.github.davidmoten.rtree.geometry.Rectangle, Monoid)}).
+ * Each value is mapped to a summary and summaries are merged with
+ * {@link #combine(Object, Object)}, which must be associative and have
+ * {@link #identity()} as its identity element (for example sum, min, max or
+ * count of a numeric field). The order in which summaries are combined is not
+ * specified.
+ *
+ * <p>
+ * When a monoid is configured with {@link RTree.Builder#aggregate(Monoid)} the
+ * summary of every node is cached when the node is created so aggregates over
+ * nodes that lie completely within the query rectangle cost nothing further.
+ *
+ * @param <T>
+ *            the entry value type
+ * @param <A>
+ *            the summary type
+ */
+public interface Monoid<T, A> {
+
+    /**
+     * Returns the summary of no values.
+     *
+     * @return identity summary
+     */
+    A identity();
+
+    /**
+     * Returns the summary of a single value.
+     *
+     * @param value
+     *            entry value
+     * @return summary of the value
+     */
+    A summarise(T value);
+
+    /**
+     * Returns the summary of the values summarised by both arguments.
+     *
+     * @param a
+     *            first summary
+     * @param b
+     *            second summary
+     * @return combined summary
+     */
+    A combine(A a, A b);
+
+    /**
+     * Returns a {@link Monoid} built from the given functions.
+     *
+     * @param identity
+     *            summary of no values
+     * @param summarise
+     *            maps a value to its summary
+     * @param combine
+     *            combines two summaries, must be associative
+     * @param <T>
+     *            the entry value type
+     * @param <A>
+     *            the summary type
+     * @return monoid
+     */
+    static <T, A> Monoid<T, A> create(final A identity, final Func1<? super T, ? extends A> summarise,
+            final Func2<? super A, ? super A, ? extends A> combine) {
+        Preconditions.checkNotNull(summarise);
+        Preconditions.checkNotNull(combine);
+        return new Monoid<T, A>() {
+
+            @Override
+            public A identity() {
+                return identity;
+            }
+
+            @Override
+            public A summarise(T value) {
+                return summarise.call(value);
+            }
+
+            @Override
+            public A combine(A a, A b) {
+                return combine.call(a, b);
+            }
+        };
+    }
+
+}
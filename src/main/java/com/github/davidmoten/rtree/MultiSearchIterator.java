@@ -0,0 +1,111 @@
+package com.github.davidmoten.rtree;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+/**
+ * Searches an R-tree for many rectangles in one traversal. Each pending node
+ * carries the indexes of the queries that intersect its parent, and only those
+ * queries are tested against the node. A node is pruned when none of them
+ * intersect it, so the upper levels of the tree are visited once for the whole
+ * batch rather than once per query.
+ * 
+ * @param <T>
+ *            the entry value type
+ * @param <S>
+ *            the entry geometry type
+ */
+final class MultiSearchIterator<T, S extends Geometry> implements Iterator<IndexedEntry<T, S>> {
+
+    private final List<? extends Rectangle> queries;
+
+    // nodes still to be visited with the queries active at their parent, the
+    // head of the deque is visited next
+    private final Deque<Frame<T, S>> frames = new ArrayDeque<Frame<T, S>>();
+
+    // matches found in the current leaf that have not been returned yet
+    private final Deque<IndexedEntry<T, S>> matches = new ArrayDeque<IndexedEntry<T, S>>();
+
+    MultiSearchIterator(Node<T, S> root, List<? extends Rectangle> queries) {
+        this.queries = queries;
+        int[] all = new int[queries.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        frames.push(new Frame<T, S>(root, all, all.length));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (matches.isEmpty()) {
+            if (frames.isEmpty()) {
+                return false;
+            }
+            visit(frames.pop());
+        }
+        return true;
+    }
+
+    @Override
+    public IndexedEntry<T, S> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return matches.poll();
+    }
+
+    private void visit(Frame<T, S> frame) {
+        Rectangle mbr = frame.node.geometry().mbr();
+        // reduce the parent's active queries to those that intersect this node
+        int[] active = new int[frame.count];
+        int count = 0;
+        for (int i = 0; i < frame.count; i++) {
+            int q = frame.active[i];
+            if (mbr.intersects(queries.get(q))) {
+                active[count++] = q;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        if (frame.node instanceof Leaf) {
+            Leaf<T, S> leaf = (Leaf<T, S>) frame.node;
+            int numEntries = leaf.count();
+            for (int i = 0; i < numEntries; i++) {
+                Entry<T, S> entry = leaf.entry(i);
+                for (int j = 0; j < count; j++) {
+                    if (entry.geometry().intersects(queries.get(active[j]))) {
+                        matches.offer(new IndexedEntry<T, S>(active[j], entry));
+                    }
+                }
+            }
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) frame.node;
+            // push in reverse so that children are visited in order. Children
+            // share the active array as they only read it.
+            for (int i = nonLeaf.count() - 1; i >= 0; i--) {
+                frames.push(new Frame<T, S>(nonLeaf.child(i), active, count));
+            }
+        }
+    }
+
+    private static final class Frame<T, S extends Geometry> {
+
+        final Node<T, S> node;
+        final int[] active;
+        final int count;
+
+        Frame(Node<T, S> node, int[] active, int count) {
+            this.node = node;
+            this.active = active;
+            this.count = count;
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.github.davidmoten.rtree;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+import rx.functions.Func1;
+
+/**
+ * Returns the entries of an R-tree in ascending order of distance using the
+ * best-first (incremental) traversal of Hjaltason and Samet. Nodes and entries
+ * share a single priority queue keyed by distance. A node is only expanded when
+ * it reaches the head of the queue, so the number of nodes visited depends on
+ * the number of entries consumed, not on the size of a search radius.
+ *
+ * <p>
+ * One distance function is applied to the minimum bounding rectangles of nodes
+ * and another to entries. For the ordering to be correct the distance to a
+ * node's mbr must not exceed the distance to anything inside it (this holds when
+ * both functions are {@link Geometry#distance}). Any key with that property can
+ * be used as a "distance", for example a negated score with a node upper bound.
+ *
+ * <p>
+ * Entries that fail the entry filter are dropped when their leaf is expanded,
+ * so they are never queued and never returned.
+ *
+ * @param <T>
+ *            the entry value type
+ * @param <S>
+ *            the entry geometry type
+ */
+final class NearestIterator<T, S extends Geometry> implements Iterator<Entry<T, S>> {
+
+    private final Func1<? super Rectangle, Double> nodeDistance;
+    private final Func1<? super Entry<T, S>, Double> entryDistance;
+    private final Func1<? super Entry<T, S>, Boolean> entryFilter;
+    private final double maxDistance;
+    private final PriorityQueue<Item<T, S>> queue = new PriorityQueue<Item<T, S>>();
+    private long sequence;
+
+    NearestIterator(Node<T, S> root, Func1<? super Rectangle, Double> nodeDistance,
+            Func1<? super Entry<T, S>, Double> entryDistance,
+            Func1<? super Entry<T, S>, Boolean> entryFilter, double maxDistance) {
+        this.nodeDistance = nodeDistance;
+        this.entryDistance = entryDistance;
+        this.entryFilter = entryFilter;
+        this.maxDistance = maxDistance;
+        offer(root);
+    }
+
+    @Override
+    public boolean hasNext() {
+        // expand nodes until an entry is at the head of the queue. Because every
+        // node still in the queue is at least as far away as the head, that entry
+        // is the next nearest.
+        while (!queue.isEmpty()) {
+            Item<T, S> item = queue.peek();
+            if (item.entry != null) {
+                return true;
+            }
+            queue.poll();
+            expand(item.node);
+        }
+        return false;
+    }
+
+    @Override
+    public Entry<T, S> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return queue.poll().entry;
+    }
+
+    private void expand(Node<T, S> node) {
+        if (node instanceof Leaf) {
+            Leaf<T, S> leaf = (Leaf<T, S>) node;
+            int count = leaf.count();
+            for (int i = 0; i < count; i++) {
+                Entry<T, S> entry = leaf.entry(i);
+                double d = entryDistance.call(entry);
+                if (d < maxDistance && entryFilter.call(entry)) {
+                    queue.offer(new Item<T, S>(d, null, entry, sequence++));
+                }
+            }
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            int count = nonLeaf.count();
+            for (int i = 0; i < count; i++) {
+                offer(nonLeaf.child(i));
+            }
+        }
+    }
+
+    private void offer(Node<T, S> node) {
+        double d = nodeDistance.call(node.geometry().mbr());
+        if (d < maxDistance) {
+            queue.offer(new Item<T, S>(d, node, null, sequence++));
+        }
+    }
+
+    private static final class Item<T, S extends Geometry> implements Comparable<Item<T, S>> {
+
+        final double distance;
+        final Node<T, S> node;
+        final Entry<T, S> entry;
+        final long sequence;
+
+        Item(double distance, Node<T, S> node, Entry<T, S> entry, long sequence) {
+            this.distance = distance;
+            this.node = node;
+            this.entry = entry;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Item<T, S> o) {
+            int value = Double.compare(distance, o.distance);
+            if (value != 0) {
+                return value;
+            }
+            // at equal distance report entries before expanding nodes
+            if (entry != null && o.entry == null) {
+                return -1;
+            } else if (entry == null && o.entry != null) {
+                return 1;
+            }
+            // otherwise preserve traversal order so results are deterministic
+            return Long.compare(sequence, o.sequence);
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.github.davidmoten.rtree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+/**
+ * k-nearest-neighbour join: the k nearest entries of one R-tree for every
+ * entry of another. The query entries are taken a leaf at a time so that the
+ * queries sharing a leaf (which are close together) share a single best-first
+ * traversal of the data tree. Nodes are visited in order of their distance
+ * from the minimum bounding rectangle of the query leaf and the traversal stops
+ * once that distance reaches the largest k-th nearest distance found so far
+ * among the leaf's queries.
+ */
+final class NearestJoin {
+
+    private NearestJoin() {
+        // prevent instantiation
+    }
+
+    /**
+     * Returns the pairs (query, neighbour) of the k nearest entries below
+     * <code>root</code> that are strictly less than <code>maxDistance</code>
+     * from each entry of <code>queries</code>, grouped by query in the order of
+     * the leaf and in ascending order of distance within each group.
+     *
+     * @param queries
+     *            leaf of query entries
+     * @param root
+     *            root of the data tree
+     * @param k
+     *            number of neighbours of each query
+     * @param maxDistance
+     *            strict max distance of neighbours from their query
+     * @return pairs of query and neighbour
+     */
+    static <T, S extends Geometry, T2, S2 extends Geometry> List<EntryPair<T, S, T2, S2>> join(
+            Leaf<T, S> queries, Node<T2, S2> root, int k, double maxDistance) {
+        int n = queries.count();
+        List<Rectangle> mbrs = new ArrayList<Rectangle>(n);
+        List<PriorityQueue<Neighbour<T2, S2>>> neighbours = new ArrayList<PriorityQueue<Neighbour<T2, S2>>>(
+                n);
+        for (int i = 0; i < n; i++) {
+            mbrs.add(queries.entry(i).geometry().mbr());
+            // a max-heap of the best k so far
+            neighbours.add(new PriorityQueue<Neighbour<T2, S2>>(k + 1, Collections.reverseOrder()));
+        }
+        Rectangle mbr = queries.geometry().mbr();
+        double bound = maxDistance;
+        PriorityQueue<Item<T2, S2>> queue = new PriorityQueue<Item<T2, S2>>();
+        queue.offer(new Item<T2, S2>(root.geometry().mbr().distance(mbr), root));
+        while (!queue.isEmpty() && queue.peek().distance < bound) {
+            Node<T2, S2> node = queue.poll().node;
+            if (node instanceof Leaf) {
+                Leaf<T2, S2> leaf = (Leaf<T2, S2>) node;
+                Rectangle leafMbr = leaf.geometry().mbr();
+                boolean updated = false;
+                for (int i = 0; i < n; i++) {
+                    PriorityQueue<Neighbour<T2, S2>> heap = neighbours.get(i);
+                    Rectangle query = mbrs.get(i);
+                    // skip queries that nothing in the leaf can improve
+                    if (leafMbr.distance(query) < kthDistance(heap, k, maxDistance)) {
+                        for (int j = 0; j < leaf.count(); j++) {
+                            Entry<T2, S2> entry = leaf.entry(j);
+                            if (entry.geometry().mbr().distance(query) < kthDistance(heap, k,
+                                    maxDistance)) {
+                                updated |= offer(heap, entry, entry.geometry().distance(query), k,
+                                        maxDistance);
+                            }
+                        }
+                    }
+                }
+                if (updated) {
+                    bound = bound(neighbours, k, maxDistance);
+                }
+            } else {
+                NonLeaf<T2, S2> nonLeaf = (NonLeaf<T2, S2>) node;
+                for (int j = 0; j < nonLeaf.count(); j++) {
+                    Node<T2, S2> child = nonLeaf.child(j);
+                    double d = child.geometry().mbr().distance(mbr);
+                    if (d < bound) {
+                        queue.offer(new Item<T2, S2>(d, child));
+                    }
+                }
+            }
+        }
+        List<EntryPair<T, S, T2, S2>> list = new ArrayList<EntryPair<T, S, T2, S2>>();
+        for (int i = 0; i < n; i++) {
+            List<Neighbour<T2, S2>> sorted = new ArrayList<Neighbour<T2, S2>>(neighbours.get(i));
+            Collections.sort(sorted);
+            for (Neighbour<T2, S2> neighbour : sorted) {
+                list.add(new EntryPair<T, S, T2, S2>(queries.entry(i), neighbour.entry));
+            }
+        }
+        return list;
+    }
+
+    private static <T2, S2 extends Geometry> boolean offer(PriorityQueue<Neighbour<T2, S2>> heap,
+            Entry<T2, S2> entry, double distance, int k, double maxDistance) {
+        if (distance < kthDistance(heap, k, maxDistance)) {
+            if (heap.size() == k) {
+                heap.poll();
+            }
+            heap.offer(new Neighbour<T2, S2>(distance, entry));
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private static <T2, S2 extends Geometry> double kthDistance(
+            PriorityQueue<Neighbour<T2, S2>> heap, int k, double maxDistance) {
+        return heap.size() < k ? maxDistance : heap.peek().distance;
+    }
+
+    // no query can gain a neighbour from anything at least this far from the mbr
+    // of the leaf
+    private static <T2, S2 extends Geometry> double bound(
+            List<PriorityQueue<Neighbour<T2, S2>>> neighbours, int k, double maxDistance) {
+        double bound = 0;
+        for (PriorityQueue<Neighbour<T2, S2>> heap : neighbours) {
+            bound = Math.max(bound, kthDistance(heap, k, maxDistance));
+        }
+        return bound;
+    }
+
+    private static final class Neighbour<T, S extends Geometry>
+            implements Comparable<Neighbour<T, S>> {
+
+        final double distance;
+        final Entry<T, S> entry;
+
+        Neighbour(double distance, Entry<T, S> entry) {
+            this.distance = distance;
+            this.entry = entry;
+        }
+
+        @Override
+        public int compareTo(Neighbour<T, S> o) {
+            return Double.compare(distance, o.distance);
+        }
+    }
+
+    private static final class Item<T, S extends Geometry> implements Comparable<Item<T, S>> {
+
+        final double distance;
+        final Node<T, S> node;
+
+        Item(double distance, Node<T, S> node) {
+            this.distance = distance;
+            this.node = node;
+        }
+
+        @Override
+        public int compareTo(Item<T, S> o) {
+            return Double.compare(distance, o.distance);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.github.davidmoten.rtree;
+
+import java.util.Arrays;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+
+/**
+ * Mutable stack of the nodes on the path from the root to the node currently
+ * being searched, with the position of the next child (or entry) to visit in
+ * each node. The arrays grow to the depth of the tree once and are then reused
+ * for the life of the search so traversal does not allocate.
+ *
+ * <p>
+ * Not thread-safe. The backpressure search only touches the stack from one
+ * thread at a time (whichever thread owns the request loop).
+ *
+ * @param <T>
+ *            the entry value type
+ * @param <S>
+ *            the entry geometry type
+ */
+final class NodeStack<T, S extends Geometry> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private Node<T, S>[] nodes;
+    private int[] positions;
+    // true if the search condition is known to hold for everything below the
+    // node
+    private boolean[] covered;
+    private int size;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    NodeStack() {
+        nodes = new Node[INITIAL_CAPACITY];
+        positions = new int[INITIAL_CAPACITY];
+        covered = new boolean[INITIAL_CAPACITY];
+    }
+
+    void push(Node<T, S> node, boolean nodeCovered) {
+        if (size == nodes.length) {
+            int capacity = size * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            covered = Arrays.copyOf(covered, capacity);
+        }
+        nodes[size] = node;
+        positions[size] = 0;
+        covered[size] = nodeCovered;
+        size++;
+    }
+
+    void pop() {
+        size--;
+        // release for gc
+        nodes[size] = null;
+    }
+
+    void clear() {
+        while (size > 0) {
+            pop();
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    Node<T, S> node() {
+        return nodes[size - 1];
+    }
+
+    int position() {
+        return positions[size - 1];
+    }
+
+    boolean covered() {
+        return covered[size - 1];
+    }
+
+    /**
+     * Moves the top of the stack on to its next child or entry.
+     */
+    void nextPosition() {
+        positions[size - 1]++;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("NodeStack [");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                s.append(", ");
+            }
+            s.append("node=").append(nodes[i]).append(", position=").append(positions[i])
+                    .append(", covered=").append(covered[i]);
+        }
+        return s.append("]").toString();
+    }
+
+}
@@ -3,6 +3,7 @@ package com.github.davidmoten.rtree;
 import java.util.List;
 
 import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.internal.NonLeafHelper;
 
 public interface NonLeaf<T, S extends Geometry> extends Node<T, S> {
 
@@ -17,4 +18,33 @@ public interface NonLeaf<T, S extends Geometry> extends Node<T, S> {
      */
     List<Node<T, S>> children();
 
-}
\ No newline at end of file
+    /**
+     * Returns the number of entries held in the leaves below this node.
+     * Implementations should cache the count (it is used to answer
+     * {@link RTree#count(com.github.davidmoten.rtree.geometry.Rectangle)} without
+     * visiting entries). This default implementation visits every descendant
+     * non-leaf node.
+     * 
+     * @return number of entries below this node
+     */
+    default int entryCount() {
+        return NonLeafHelper.entryCount(this);
+    }
+
+    /**
+     * Returns the summary of the entry values held in the leaves below this node.
+     * Implementations may cache the summary for the monoid of
+     * {@link Context#monoid()}. This default implementation combines the
+     * summaries of the children.
+     * 
+     * @param monoid
+     *            summarises entry values
+     * @param <A>
+     *            the summary type
+     * @return summary of the entry values below this node
+     */
+    default <A> A aggregate(Monoid<? super T, A> monoid) {
+        return NonLeafHelper.aggregate(this, monoid);
+    }
+
+}
@@ -4,7 +4,6 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
 import com.github.davidmoten.rtree.geometry.Geometry;
-import com.github.davidmoten.rtree.internal.util.ImmutableStack;
 
 import rx.Observable.OnSubscribe;
 import rx.Producer;
@@ -32,7 +31,10 @@ final class OnSubscribeSearch<T, S extends Geometry> implements OnSubscribe<Entr
         private final Subscriber<? super Entry<T, S>> subscriber;
         private final Node<T, S> node;
         private final Func1<? super Geometry, Boolean> condition;
-        private volatile ImmutableStack<NodePosition<T, S>> stack;
+        // traversal state for the backpressure path. Only the thread that moves
+        // requested away from zero touches the stack and the atomic operations
+        // on requested make its changes visible to the next such thread.
+        private final NodeStack<T, S> stack = new NodeStack<T, S>();
         private final AtomicLong requested = new AtomicLong(0);
 
         SearchProducer(Node<T, S> node, Func1<? super Geometry, Boolean> condition,
@@ -40,7 +42,10 @@ final class OnSubscribeSearch<T, S extends Geometry> implements OnSubscribe<Entr
             this.node = node;
             this.condition = condition;
             this.subscriber = subscriber;
-            stack = ImmutableStack.create(new NodePosition<T, S>(node, 0));
+            // the root mbr is only tested if the condition can cover it
+            boolean covered = condition instanceof CoveringCondition
+                    && ((CoveringCondition) condition).covers(node.geometry().mbr());
+            stack.push(node, covered);
         }
 
         @Override
@@ -74,26 +79,17 @@ final class OnSubscribeSearch<T, S extends Geometry> implements OnSubscribe<Entr
             // but benchmarks showed no benefit here so reverted to AtomicLong
             long previousCount = getAndAddRequest(requested, n);
             if (previousCount == 0) {
-                // don't touch stack every time during the loop because
-                // is a volatile and every write forces a thread memory
-                // cache flush
-                ImmutableStack<NodePosition<T, S>> st = stack;
                 while (true) {
                     // minimize atomic reads by assigning to a variable here
                     long r = requested.get();
-                    st = Backpressure.search(condition, subscriber, st, r);
-                    if (st.isEmpty()) {
-                        // release some state for gc (although empty stack so not very significant)
-                        stack = null;
+                    Backpressure.search(condition, subscriber, stack, r);
+                    if (stack.isEmpty()) {
                         if (!subscriber.isUnsubscribed()) {
                             subscriber.onCompleted();
                         }
                         return;
-                    } else {
-                        stack = st;
-                        if (requested.addAndGet(-r) == 0)
-                            return;
-                    }
+                    } else if (requested.addAndGet(-r) == 0)
+                        return;
                 }
 
             }
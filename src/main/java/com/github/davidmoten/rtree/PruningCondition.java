@@ -0,0 +1,33 @@
+package com.github.davidmoten.rtree;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+import rx.functions.Func1;
+
+/**
+ * A search condition with its own rule for pruning nodes. Searches normally
+ * apply a condition to the minimum bounding rectangle of each node as well as
+ * to entries, which only works for conditions that hold for a rectangle
+ * whenever they hold for something inside it (like intersection). A condition
+ * such as "lies within the query" does not have that property so it supplies
+ * the node test separately.
+ *
+ * <p>
+ * {@code mayMatchWithin(r)} must return true if {@code call(g)} is true for
+ * any {@link Geometry} g whose minimum bounding rectangle lies within r.
+ */
+public interface PruningCondition extends Func1<Geometry, Boolean> {
+
+    /**
+     * Returns false only if no geometry whose minimum bounding rectangle lies
+     * within the given rectangle can satisfy the condition. Returning true is
+     * always safe.
+     *
+     * @param r
+     *            minimum bounding rectangle of a node
+     * @return false if the node can be skipped
+     */
+    boolean mayMatchWithin(Rectangle r);
+
+}
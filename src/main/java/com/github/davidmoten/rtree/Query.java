@@ -0,0 +1,219 @@
+package com.github.davidmoten.rtree;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.geometry.Circle;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Line;
+import com.github.davidmoten.rtree.geometry.LineString;
+import com.github.davidmoten.rtree.geometry.Polygon;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.Conditions;
+
+import rx.functions.Func1;
+
+/**
+ * A boolean combination of search conditions answered by a single traversal
+ * (see {@link RTree#search(Query)}), for example
+ *
+ * <pre>
+ * Query.intersects(a).or(Query.intersects(circle)).and(Query.intersects(c).not())
+ * </pre>
+ *
+ * <p>
+ * Node pruning is derived from the combination. A node is skipped when the
+ * combination cannot match anything inside it (for example when no part of an
+ * OR meets the node, or when the node lies inside the region of a NOT) and
+ * every entry below a node is emitted without tests when the combination is
+ * known to hold for everything inside it.
+ */
+public abstract class Query implements CoveringCondition, PruningCondition {
+
+    Query() {
+        // only the subclasses below
+    }
+
+    /**
+     * Returns a query matching the geometries for which the condition is true.
+     * The condition is applied to node rectangles as well as to entries (as for
+     * any search condition) unless it is a {@link PruningCondition}, and it can
+     * cover nodes if it is a {@link CoveringCondition}.
+     *
+     * @param condition
+     *            condition on the geometry of entries
+     * @return query
+     */
+    public static Query of(Func1<? super Geometry, Boolean> condition) {
+        Preconditions.checkNotNull(condition);
+        return new Leaf(condition);
+    }
+
+    public static Query intersects(Rectangle r) {
+        return of(Conditions.intersects(r));
+    }
+
+    public static Query intersects(Circle circle) {
+        return of(Conditions.intersects(circle));
+    }
+
+    public static Query intersects(Line line) {
+        return of(Conditions.intersects(line));
+    }
+
+    public static Query intersects(Polygon polygon) {
+        return of(Conditions.intersects(polygon));
+    }
+
+    public static Query within(Rectangle r) {
+        return of(Conditions.within(r));
+    }
+
+    public static Query containing(Rectangle r) {
+        return of(Conditions.containing(r));
+    }
+
+    public static Query withinDistance(Rectangle r, double maxDistance) {
+        return of(Conditions.withinDistance(r, maxDistance));
+    }
+
+    public static Query withinDistance(LineString lineString, double maxDistance) {
+        return of(Conditions.withinDistance(lineString, maxDistance));
+    }
+
+    /**
+     * Returns a query matching the geometries matched by both this query and the
+     * other.
+     *
+     * @param other
+     *            other query
+     * @return conjunction
+     */
+    public final Query and(Query other) {
+        Preconditions.checkNotNull(other);
+        return new And(this, other);
+    }
+
+    /**
+     * Returns a query matching the geometries matched by this query or the other
+     * (or both).
+     *
+     * @param other
+     *            other query
+     * @return disjunction
+     */
+    public final Query or(Query other) {
+        Preconditions.checkNotNull(other);
+        return new Or(this, other);
+    }
+
+    /**
+     * Returns a query matching the geometries not matched by this query.
+     *
+     * @return negation
+     */
+    public final Query not() {
+        return new Not(this);
+    }
+
+    private static final class Leaf extends Query {
+
+        private final Func1<? super Geometry, Boolean> condition;
+
+        Leaf(Func1<? super Geometry, Boolean> condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            return condition.call(g);
+        }
+
+        @Override
+        public boolean covers(Rectangle r) {
+            return Conditions.covers(condition, r);
+        }
+
+        @Override
+        public boolean mayMatchWithin(Rectangle r) {
+            return Conditions.mayMatchWithin(condition, r);
+        }
+    }
+
+    private static final class And extends Query {
+
+        private final Query a;
+        private final Query b;
+
+        And(Query a, Query b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            return a.call(g) && b.call(g);
+        }
+
+        @Override
+        public boolean covers(Rectangle r) {
+            return a.covers(r) && b.covers(r);
+        }
+
+        @Override
+        public boolean mayMatchWithin(Rectangle r) {
+            return a.mayMatchWithin(r) && b.mayMatchWithin(r);
+        }
+    }
+
+    private static final class Or extends Query {
+
+        private final Query a;
+        private final Query b;
+
+        Or(Query a, Query b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            return a.call(g) || b.call(g);
+        }
+
+        @Override
+        public boolean covers(Rectangle r) {
+            return a.covers(r) || b.covers(r);
+        }
+
+        @Override
+        public boolean mayMatchWithin(Rectangle r) {
+            return a.mayMatchWithin(r) || b.mayMatchWithin(r);
+        }
+    }
+
+    private static final class Not extends Query {
+
+        private final Query q;
+
+        Not(Query q) {
+            this.q = q;
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            return !q.call(g);
+        }
+
+        // everything inside r fails q so everything inside r matches
+        @Override
+        public boolean covers(Rectangle r) {
+            return !q.mayMatchWithin(r);
+        }
+
+        // everything inside r matches q so nothing inside r matches
+        @Override
+        public boolean mayMatchWithin(Rectangle r) {
+            return !q.covers(r);
+        }
+    }
+
+}
@@ -6,21 +6,33 @@ import static java.util.Optional.of;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.github.davidmoten.guavamini.Lists;
+import com.github.davidmoten.guavamini.Preconditions;
 import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
 import com.github.davidmoten.rtree.geometry.Circle;
+import com.github.davidmoten.rtree.geometry.Geometries;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.HasGeometry;
-import com.github.davidmoten.rtree.geometry.Intersects;
 import com.github.davidmoten.rtree.geometry.Line;
+import com.github.davidmoten.rtree.geometry.LineString;
 import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Polygon;
+import com.github.davidmoten.rtree.geometry.Ray;
 import com.github.davidmoten.rtree.geometry.Rectangle;
-import com.github.davidmoten.rtree.internal.Comparators;
+import com.github.davidmoten.rtree.geometry.internal.GeographicUtil;
+import com.github.davidmoten.rtree.geometry.internal.GeometryUtil;
+import com.github.davidmoten.rtree.internal.Conditions;
+import com.github.davidmoten.rtree.internal.Functions;
 import com.github.davidmoten.rtree.internal.NodeAndEntries;
-import com.github.davidmoten.rtree.internal.operators.OperatorBoundedPriorityQueue;
+import com.github.davidmoten.rtree.internal.NonLeafHelper;
 
 import rx.Observable;
 import rx.functions.Func1;
@@ -316,6 +328,28 @@ public final class RTree<T, S extends Geometry> {
             return this;
         }
 
+        /**
+         * Sets the {@link Monoid} whose summary of entry values is cached in every
+         * node so that {@link RTree#aggregate(Rectangle, Monoid)} with the same
+         * monoid instance only visits the nodes on the boundary of the query
+         * rectangle. Summaries are recomputed along the path of every add and
+         * delete. The monoid is not serialized.
+         * 
+         * <p>
+         * The returned builder fixes the value type of the tree to one the monoid
+         * accepts so configure the other options first.
+         * 
+         * @param monoid
+         *            summarises entry values
+         * @param <T>
+         *            value type
+         * @return builder typed by the values the monoid accepts
+         */
+        public <T> AggregateBuilder<T> aggregate(Monoid<? super T, ?> monoid) {
+            Preconditions.checkNotNull(monoid);
+            return new AggregateBuilder<T>(this, monoid);
+        }
+
         /**
          * Builds the {@link RTree}.
          * 
@@ -325,13 +359,8 @@ public final class RTree<T, S extends Geometry> {
          *            geometry type
          * @return RTree
          */
-        @SuppressWarnings("unchecked")
         public <T, S extends Geometry> RTree<T, S> create() {
-            setDefaultCapacity();
-
-            return new RTree<T, S>(Optional.<Node<T, S>>empty(), 0,
-                    new Context<T, S>(minChildren.get(), maxChildren.get(), selector, splitter,
-                            (Factory<T, S>) factory));
+            return create(Optional.<Monoid<? super T, ?>>empty());
         }
 
         /**
@@ -347,15 +376,29 @@ public final class RTree<T, S extends Geometry> {
          *            entries to be added to the r-tree
          * @return a loaded RTree
          */
-        @SuppressWarnings("unchecked")
         public <T, S extends Geometry> RTree<T, S> create(List<Entry<T, S>> entries) {
-            setDefaultCapacity();
+            return create(entries, Optional.<Monoid<? super T, ?>>empty());
+        }
 
-            Context<T, S> context = new Context<T, S>(minChildren.get(), maxChildren.get(),
-                    selector, splitter, (Factory<T, S>) factory);
+        private <T, S extends Geometry> RTree<T, S> create(
+                Optional<Monoid<? super T, ?>> monoid) {
+            return new RTree<T, S>(Optional.<Node<T, S>>empty(), 0, context(monoid));
+        }
+
+        private <T, S extends Geometry> RTree<T, S> create(List<Entry<T, S>> entries,
+                Optional<Monoid<? super T, ?>> monoid) {
+            Context<T, S> context = context(monoid);
             return packingSTR(entries, true, entries.size(), context);
         }
 
+        @SuppressWarnings("unchecked")
+        private <T, S extends Geometry> Context<T, S> context(
+                Optional<Monoid<? super T, ?>> monoid) {
+            setDefaultCapacity();
+            return new Context<T, S>(minChildren.get(), maxChildren.get(), selector, splitter,
+                    (Factory<T, S>) factory, monoid);
+        }
+
         private void setDefaultCapacity() {
             if (!maxChildren.isPresent()) {
                 if (star) {
@@ -376,7 +419,7 @@ public final class RTree<T, S extends Geometry> {
             int nodeCount = (int) Math.ceil(1.0 * objects.size() / capacity);
 
             if (nodeCount == 0) {
-                return create();
+                return new RTree<T, S>(Optional.<Node<T, S>>empty(), 0, context);
             } else if (nodeCount == 1) {
                 Node<T, S> root;
                 if (isLeaf) {
@@ -440,6 +483,50 @@ public final class RTree<T, S extends Geometry> {
 
     }
 
+    /**
+     * RTree builder whose value type is fixed by the {@link Monoid} passed to
+     * {@link Builder#aggregate(Monoid)}.
+     *
+     * @param <T>
+     *            value type
+     */
+    public static final class AggregateBuilder<T> {
+
+        private final Builder builder;
+        private final Monoid<? super T, ?> monoid;
+
+        private AggregateBuilder(Builder builder, Monoid<? super T, ?> monoid) {
+            this.builder = builder;
+            this.monoid = monoid;
+        }
+
+        /**
+         * Builds the {@link RTree}.
+         * 
+         * @param <S>
+         *            geometry type
+         * @return RTree
+         */
+        public <S extends Geometry> RTree<T, S> create() {
+            return builder.create(Optional.<Monoid<? super T, ?>>of(monoid));
+        }
+
+        /**
+         * Create an RTree by bulk loading, using the STR method. See
+         * {@link Builder#create(List)}.
+         * 
+         * @param entries
+         *            entries to be added to the r-tree
+         * @param <S>
+         *            geometry type
+         * @return a loaded RTree
+         */
+        public <S extends Geometry> RTree<T, S> create(List<Entry<T, S>> entries) {
+            return builder.create(entries, Optional.<Monoid<? super T, ?>>of(monoid));
+        }
+
+    }
+
     /**
      * Returns an immutable copy of the RTree with the addition of given entry.
      * 
@@ -668,14 +755,14 @@ public final class RTree<T, S extends Geometry> {
      * @return whether the geometry and the rectangle intersect
      */
     public static Func1<Geometry, Boolean> intersects(final Rectangle r) {
-        return g -> g.intersects(r);
+        return Conditions.intersects(r);
     }
 
     /**
      * Returns the always true predicate. See {@link RTree#entries()} for example
      * use.
      */
-    private static final Func1<Geometry, Boolean> ALWAYS_TRUE = rectangle -> true;
+    private static final Func1<Geometry, Boolean> ALWAYS_TRUE = Conditions.alwaysTrue();
 
     /**
      * Returns an {@link Observable} sequence of all {@link Entry}s in the R-tree
@@ -701,12 +788,130 @@ public final class RTree<T, S extends Geometry> {
         return search(p.mbr());
     }
 
+    /**
+     * Returns an {@link Observable} sequence of the {@link Entry}s in the R-tree
+     * whose minimum bounding rectangle intersects with any of the given
+     * rectangles, each tagged with the index in the list of the rectangle it
+     * intersects. An entry that intersects several rectangles is emitted once per
+     * rectangle.
+     * 
+     * <p>
+     * The tree is traversed once for the whole list. Each node is only tested
+     * against the rectangles that intersect its parent and is pruned when none of
+     * them intersect it, so this is cheaper than a separate
+     * {@link #search(Rectangle)} per rectangle when there are many small queries.
+     * 
+     * @param rectangles
+     *            rectangles to check intersection with the entry mbr
+     * @return matching entries tagged with the index of the rectangle they
+     *         intersect
+     */
+    public Observable<IndexedEntry<T, S>> search(final List<? extends Rectangle> rectangles) {
+        final List<Rectangle> queries = new ArrayList<Rectangle>(rectangles);
+        if (queries.isEmpty()) {
+            return Observable.empty();
+        }
+        return root
+                .map(node -> Observable.from((Iterable<IndexedEntry<T, S>>) () -> new MultiSearchIterator<T, S>(
+                        node, queries)))
+                .orElseGet(Observable::empty);
+    }
+
+    /**
+     * Returns an {@link Observable} sequence of all {@link Entry}s in the R-tree
+     * whose geometry intersects the given circle. Nodes are tested against the
+     * circle itself rather than its minimum bounding rectangle and nodes that lie
+     * inside the circle are emitted without further tests.
+     * 
+     * @param circle
+     *            circle to check intersection with
+     * @return entries that intersect the circle
+     */
     public Observable<Entry<T, S>> search(Circle circle) {
-        return search(circle, Intersects.geometryIntersectsCircle);
+        return search(Conditions.intersects(circle));
     }
 
+    /**
+     * Returns an {@link Observable} sequence of all {@link Entry}s in the R-tree
+     * whose geometry intersects the given line segment. Nodes are tested against
+     * the segment itself rather than its minimum bounding rectangle so a long
+     * diagonal line only descends into nodes it passes through.
+     * 
+     * @param line
+     *            line segment to check intersection with
+     * @return entries that intersect the line
+     */
     public Observable<Entry<T, S>> search(Line line) {
-        return search(line, Intersects.geometryIntersectsLine);
+        return search(Conditions.intersects(line));
+    }
+
+    /**
+     * Returns an {@link Observable} sequence of all {@link Entry}s in the R-tree
+     * whose geometry matches the given query, a boolean combination of search
+     * conditions. The whole combination is answered by one traversal with node
+     * pruning derived from the combination (see {@link Query}), so there is no
+     * need to run several searches and merge the results.
+     * 
+     * @param query
+     *            combination of search conditions
+     * @return entries matching the query
+     */
+    public Observable<Entry<T, S>> search(final Query query) {
+        return search((Func1<? super Geometry, Boolean>) query);
+    }
+
+    /**
+     * Returns an {@link Observable} sequence of all {@link Entry}s in the R-tree
+     * whose minimum bounding rectangle lies within the given rectangle
+     * (boundaries included).
+     * 
+     * <p>
+     * Nodes that do not intersect the rectangle are skipped and every entry below
+     * a node inside the rectangle is emitted without further tests.
+     * 
+     * @param r
+     *            rectangle that returned entries must lie within
+     * @return entries within the rectangle
+     */
+    public Observable<Entry<T, S>> searchWithin(final Rectangle r) {
+        return search(Conditions.within(r));
+    }
+
+    /**
+     * Returns an {@link Observable} sequence of all {@link Entry}s in the R-tree
+     * whose geometry contains the given rectangle (boundaries included). Passing
+     * a {@link Point} gives a stabbing query: the entries that enclose the point.
+     * Rectangles and points are tested by containment, circles and polygons
+     * exactly and other geometries by their minimum bounding rectangle.
+     * 
+     * <p>
+     * A node whose minimum bounding rectangle does not contain the query cannot
+     * hold a matching entry so it is skipped without looking at its children.
+     * 
+     * @param r
+     *            rectangle (or point) that returned entries must contain
+     * @return entries containing the rectangle
+     */
+    public Observable<Entry<T, S>> searchContaining(final Rectangle r) {
+        return search(Conditions.containing(r));
+    }
+
+    /**
+     * Returns an {@link Observable} sequence of all {@link Entry}s in the R-tree
+     * whose geometry intersects the given polygon (including its boundary).
+     * 
+     * <p>
+     * Nodes are tested against the polygon itself rather than its minimum
+     * bounding rectangle: nodes outside the polygon are skipped, every entry below
+     * a node inside the polygon is emitted without further tests and only entries
+     * of nodes that cross the boundary of the polygon are tested individually.
+     * 
+     * @param polygon
+     *            polygon to check intersection with
+     * @return entries that intersect the polygon
+     */
+    public Observable<Entry<T, S>> search(Polygon polygon) {
+        return search(Conditions.intersects(polygon));
     }
 
     /**
@@ -721,7 +926,31 @@ public final class RTree<T, S extends Geometry> {
      * @return the sequence of matching entries
      */
     public Observable<Entry<T, S>> search(final Rectangle r, final double maxDistance) {
-        return search(g -> g.distance(r) < maxDistance);
+        return search(Conditions.withinDistance(r, maxDistance));
+    }
+
+    /**
+     * Returns an {@link Observable} sequence of all {@link Entry}s in the R-tree
+     * whose minimum bounding rectangles are strictly less than maxDistance from the
+     * given line string (a corridor search, for example points of interest along
+     * a route).
+     * 
+     * <p>
+     * Nodes are pruned by their distance from the segments of the line string
+     * rather than from its minimum bounding rectangle, and a node within
+     * maxDistance of a single segment is emitted without further tests, so the
+     * cost follows the length of the route rather than the area of its bounding
+     * box.
+     * 
+     * @param lineString
+     *            line string to measure distance from
+     * @param maxDistance
+     *            entries returned must be within this distance from the line
+     *            string
+     * @return the sequence of matching entries
+     */
+    public Observable<Entry<T, S>> search(final LineString lineString, final double maxDistance) {
+        return search(Conditions.withinDistance(lineString, maxDistance));
     }
 
     /**
@@ -785,6 +1014,12 @@ public final class RTree<T, S extends Geometry> {
      * Returns the nearest k entries (k=maxCount) to the given rectangle where the
      * entries are strictly less than a given maximum distance from the rectangle.
      * 
+     * <p>
+     * The tree is traversed best-first (nodes are expanded in order of their
+     * distance from the rectangle) and the traversal stops as soon as
+     * <code>maxCount</code> entries have been found so the cost grows with
+     * <code>maxCount</code> rather than with <code>maxDistance</code>.
+     * 
      * @param r
      *            rectangle
      * @param maxDistance
@@ -795,8 +1030,8 @@ public final class RTree<T, S extends Geometry> {
      */
     public Observable<Entry<T, S>> nearest(final Rectangle r, final double maxDistance,
             int maxCount) {
-        return search(r, maxDistance).lift(new OperatorBoundedPriorityQueue<Entry<T, S>>(maxCount,
-                Comparators.<T, S>ascendingDistance(r)));
+        return nearest(g -> g.distance(r), e -> e.geometry().distance(r), maxDistance)
+                .take(maxCount);
     }
 
     /**
@@ -815,6 +1050,616 @@ public final class RTree<T, S extends Geometry> {
         return nearest(p.mbr(), maxDistance, maxCount);
     }
 
+    /**
+     * Returns the nearest k entries (k=maxCount) to the given rectangle that
+     * satisfy <code>filter</code> and are strictly less than a given maximum
+     * distance from the rectangle.
+     * 
+     * <p>
+     * The filter is applied during the best-first traversal as each leaf is
+     * expanded, so entries that fail it are never queued and do not count
+     * towards <code>maxCount</code>. The traversal continues outwards until
+     * <code>maxCount</code> matching entries have been found (or the tree is
+     * exhausted) however many nearby entries fail the filter, so there is no
+     * need to over-fetch and filter afterwards.
+     * 
+     * @param r
+     *            rectangle
+     * @param maxDistance
+     *            max distance of returned entries from the rectangle
+     * @param maxCount
+     *            max number of entries to return
+     * @param filter
+     *            condition on entries, for example on {@link Entry#value()}
+     * @return nearest matching entries to maxCount, in ascending order of
+     *         distance
+     */
+    public Observable<Entry<T, S>> nearest(final Rectangle r, final double maxDistance,
+            int maxCount, final Func1<? super Entry<T, S>, Boolean> filter) {
+        return nearest(g -> g.distance(r), e -> e.geometry().distance(r), filter, maxDistance)
+                .take(maxCount);
+    }
+
+    /**
+     * Returns the nearest k entries (k=maxCount) to the given point that satisfy
+     * <code>filter</code> and are strictly less than a given maximum distance
+     * from the point. See
+     * {@link #nearest(Rectangle, double, int, Func1)}.
+     * 
+     * @param p
+     *            point
+     * @param maxDistance
+     *            max distance of returned entries from the point
+     * @param maxCount
+     *            max number of entries to return
+     * @param filter
+     *            condition on entries, for example on {@link Entry#value()}
+     * @return nearest matching entries to maxCount, in ascending order of
+     *         distance
+     */
+    public Observable<Entry<T, S>> nearest(final Point p, final double maxDistance, int maxCount,
+            final Func1<? super Entry<T, S>, Boolean> filter) {
+        return nearest(p.mbr(), maxDistance, maxCount, filter);
+    }
+
+    /**
+     * Returns the nearest k entries (k=maxCount) to the given rectangle without
+     * any bound on their distance from the rectangle.
+     * 
+     * @param r
+     *            rectangle
+     * @param maxCount
+     *            max number of entries to return
+     * @return nearest entries to maxCount, in ascending order of distance
+     */
+    public Observable<Entry<T, S>> nearest(final Rectangle r, int maxCount) {
+        return nearest(r, Double.POSITIVE_INFINITY, maxCount);
+    }
+
+    /**
+     * Returns the nearest k entries (k=maxCount) to the given point without any
+     * bound on their distance from the point.
+     * 
+     * @param p
+     *            point
+     * @param maxCount
+     *            max number of entries to return
+     * @return nearest entries to maxCount, in ascending order of distance
+     */
+    public Observable<Entry<T, S>> nearest(final Point p, int maxCount) {
+        return nearest(p.mbr(), maxCount);
+    }
+
+    /**
+     * Returns the entries strictly less than <code>maxDistanceMetres</code> from
+     * the given position by great-circle (haversine) distance on a spherical
+     * earth. Coordinates are longitude (x) and latitude (y) in degrees as created
+     * by {@link Geometries#pointGeographic(double, double)}. Geometries other
+     * than points are measured by their minimum bounding rectangle.
+     * 
+     * <p>
+     * Nodes are pruned by the exact least great-circle distance to their
+     * minimum bounding rectangle, which compares longitudes modulo 360, so
+     * searches near the antimeridian or the poles need no special handling and
+     * no padded query rectangle.
+     * 
+     * @param lonLat
+     *            position to measure distance from
+     * @param maxDistanceMetres
+     *            entries returned must be strictly less than this distance in
+     *            metres from lonLat
+     * @return the sequence of matching entries
+     */
+    public Observable<Entry<T, S>> searchGeographic(final Point lonLat,
+            final double maxDistanceMetres) {
+        final double lon = lonLat.x();
+        final double lat = lonLat.y();
+        return search(g -> GeographicUtil.distanceMetres(lon, lat, g) < maxDistanceMetres);
+    }
+
+    /**
+     * Returns the nearest k entries (k=maxCount) to the given position by
+     * great-circle distance where the entries are strictly less than
+     * <code>maxDistanceMetres</code> from the position, in ascending order of
+     * distance. See {@link #searchGeographic(Point, double)} for the distance
+     * used.
+     * 
+     * @param lonLat
+     *            position to measure distance from
+     * @param maxDistanceMetres
+     *            max distance in metres of returned entries from lonLat
+     * @param maxCount
+     *            max number of entries to return
+     * @return nearest entries to maxCount, in ascending order of distance
+     */
+    public Observable<Entry<T, S>> nearestGeographic(final Point lonLat,
+            final double maxDistanceMetres, int maxCount) {
+        final double lon = lonLat.x();
+        final double lat = lonLat.y();
+        return nearest(r -> GeographicUtil.distanceMetres(lon, lat, r.x1(), r.y1(), r.x2(), r.y2()),
+                e -> GeographicUtil.distanceMetres(lon, lat, e.geometry()), maxDistanceMetres)
+                        .take(maxCount);
+    }
+
+    /**
+     * Returns every entry in the tree in ascending order of distance from the
+     * given rectangle. The sequence is produced lazily by a best-first traversal
+     * that honours backpressure, so a consumer can stop pulling once it has what
+     * it needs. For example, the nearest 10 entries satisfying a predicate:
+     * 
+     * <pre>
+     * tree.nearestStream(r).filter(entry -&gt; entry.value().isAvailable()).take(10)
+     * </pre>
+     * 
+     * <p>
+     * {@link #nearest(Rectangle, double, int, Func1)} gives the same result but
+     * drops non-matching entries during the traversal rather than queueing them.
+     * 
+     * @param r
+     *            rectangle to measure distance from
+     * @return all entries in ascending order of distance from r
+     */
+    public Observable<Entry<T, S>> nearestStream(final Rectangle r) {
+        return nearest(g -> g.distance(r), e -> e.geometry().distance(r),
+                Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Returns every entry in the tree in ascending order of distance from the
+     * given point. See {@link #nearestStream(Rectangle)}.
+     * 
+     * @param p
+     *            point to measure distance from
+     * @return all entries in ascending order of distance from p
+     */
+    public Observable<Entry<T, S>> nearestStream(final Point p) {
+        return nearestStream(p.mbr());
+    }
+
+    /**
+     * Returns every entry in the tree in ascending order of distance from the
+     * given (arbitrary) geometry. Nodes are ordered by the distance of their
+     * minimum bounding rectangle from the mbr of <code>g</code> so the distance
+     * function must never be less than the distance between the mbrs of its
+     * arguments. See {@link #nearestStream(Rectangle)}.
+     * 
+     * @param <R>
+     *            type of the geometry to measure distance from
+     * @param g
+     *            geometry to measure distance from
+     * @param distance
+     *            function to calculate the distance between geometries of type S
+     *            and R
+     * @return all entries in ascending order of distance from g
+     */
+    public <R extends Geometry> Observable<Entry<T, S>> nearestStream(final R g,
+            final Func2<? super S, ? super R, Double> distance) {
+        final Rectangle mbr = g.mbr();
+        return nearest(r -> r.distance(mbr), e -> distance.call(e.geometry(), g),
+                Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Returns the entries hit by the ray in the order the ray meets them (by
+     * distance along the ray from its origin). Entries the ray misses are not
+     * returned. See {@link Ray#hit(Geometry)} for how geometries are tested.
+     * 
+     * <p>
+     * The tree is traversed best-first keyed on the distance at which the ray
+     * enters each node's minimum bounding rectangle, so nodes are only opened
+     * when the ray could hit something in them before the hits already found,
+     * and the sequence is produced lazily with backpressure.
+     * 
+     * @param ray
+     *            ray
+     * @return entries hit by the ray in order of hit distance
+     */
+    public Observable<Entry<T, S>> search(final Ray ray) {
+        return nearest(r -> ray.hit(r), e -> ray.hit(e.geometry()), Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Returns the first k entries hit by the ray in order of hit distance. See
+     * {@link #search(Ray)}.
+     * 
+     * @param ray
+     *            ray
+     * @param k
+     *            max number of entries to return
+     * @return the first k entries hit by the ray
+     */
+    public Observable<Entry<T, S>> firstHits(final Ray ray, int k) {
+        return search(ray).take(k);
+    }
+
+    /**
+     * Returns the farthest k entries (k=maxCount) from the given rectangle in
+     * descending order of distance. The distance of an entry is the distance
+     * from its geometry to the rectangle, as for {@link #nearest(Rectangle, int)}.
+     * 
+     * <p>
+     * The tree is traversed best-first in descending order of the greatest
+     * distance from the rectangle of any point in a node's minimum bounding
+     * rectangle, so a node is only opened if something inside it could be
+     * farther away than the k-th entry found so far.
+     * 
+     * @param r
+     *            rectangle to measure distance from
+     * @param maxCount
+     *            max number of entries to return
+     * @return farthest entries to maxCount, in descending order of distance
+     */
+    public Observable<Entry<T, S>> farthest(final Rectangle r, int maxCount) {
+        return nearest(g -> -GeometryUtil.maxDistance(r, g.x1(), g.y1(), g.x2(), g.y2()),
+                e -> -e.geometry().distance(r), Double.POSITIVE_INFINITY).take(maxCount);
+    }
+
+    /**
+     * Returns the farthest k entries (k=maxCount) from the given point in
+     * descending order of distance. See {@link #farthest(Rectangle, int)}.
+     * 
+     * @param p
+     *            point to measure distance from
+     * @param maxCount
+     *            max number of entries to return
+     * @return farthest entries to maxCount, in descending order of distance
+     */
+    public Observable<Entry<T, S>> farthest(final Point p, int maxCount) {
+        return farthest(p.mbr(), maxCount);
+    }
+
+    /**
+     * Returns the entries that have the given point among their own k nearest
+     * neighbours (k=maxCount), that is the entries for which fewer than k other
+     * entries are strictly closer than the point (reverse nearest neighbours).
+     * The entries are returned in ascending order of distance from the point.
+     * Entries are treated as points; other geometries are represented by the
+     * centre of their minimum bounding rectangle.
+     * 
+     * <p>
+     * The search uses TPL pruning: entries are reached best-first from the point
+     * and each one found bounds, by the perpendicular bisector between it and the
+     * point, a half-plane of positions closer to it than to the point. Nodes
+     * lying wholly inside k of those half-planes are never opened. The remaining
+     * candidates are verified with a nearest search bounded by their distance
+     * from the point rather than by a nearest search for every entry.
+     * 
+     * @param p
+     *            query point
+     * @param maxCount
+     *            the number of nearest neighbours k
+     * @return entries having p among their k nearest neighbours
+     */
+    public Observable<Entry<T, S>> reverseNearest(final Point p, final int maxCount) {
+        Preconditions.checkArgument(maxCount > 0, "maxCount must be positive");
+        return root
+                .map(node -> Observable.from((Iterable<Entry<T, S>>) () -> ReverseNearest
+                        .search(node, p.x(), p.y(), maxCount).iterator()))
+                .orElseGet(Observable::empty);
+    }
+
+    /**
+     * Returns the skyline of the tree: the entries not dominated by any other
+     * entry when both x and y are to be minimised (for example price and
+     * distance mapped onto the two axes). An entry dominates another if it is
+     * no greater in x and in y and is less in at least one of them. Entries are
+     * compared by the lower left corner of their minimum bounding rectangle
+     * (the point itself for a point). To maximise a quantity negate it when
+     * building the tree.
+     * 
+     * <p>
+     * The branch-and-bound skyline (BBS) algorithm visits nodes best-first in
+     * order of x1 + y1 of their mbr and never opens a node whose lower left
+     * corner is dominated by the skyline found so far. Entries are emitted
+     * progressively in ascending order of x + y.
+     * 
+     * @return the skyline entries
+     */
+    public Observable<Entry<T, S>> skyline() {
+        return root
+                .map(node -> Observable.from(
+                        (Iterable<Entry<T, S>>) () -> new SkylineIterator<T, S>(node)))
+                .orElseGet(Observable::empty);
+    }
+
+    /**
+     * Returns the <code>k</code> entries with the highest score in descending
+     * order of score.
+     * 
+     * <p>
+     * The tree is traversed best-first in descending order of
+     * <code>upperBound</code> applied to the minimum bounding rectangles of
+     * nodes, so a subtree is never opened unless its bound beats the score of
+     * the k-th entry found so far. The bound must never be less than the score of
+     * any entry inside the rectangle. For example to rank by a relevance stored
+     * in the entry value decayed by distance from a point <code>p</code> with
+     * relevance at most <code>maxRelevance</code>:
+     * 
+     * <pre>
+     * tree.top(10, e -&gt; e.value().relevance() / (1 + e.geometry().distance(p)),
+     *         r -&gt; maxRelevance / (1 + r.distance(p)))
+     * </pre>
+     * 
+     * Entries with equal scores are returned in traversal order. Scores and
+     * bounds must be greater than negative infinity; a NaN or negative infinite
+     * value met during the traversal is emitted as an
+     * {@link IllegalArgumentException} error rather than silently dropping the
+     * entry or subtree.
+     * 
+     * @param k
+     *            max number of entries to return
+     * @param score
+     *            score of an entry, higher is better
+     * @param upperBound
+     *            upper bound on the score of any entry inside a rectangle
+     * @return at most k entries in descending order of score
+     */
+    public Observable<Entry<T, S>> top(int k, final Func1<? super Entry<T, S>, Double> score,
+            final Func1<? super Rectangle, Double> upperBound) {
+        // the best-first traversal visits in ascending order of key so negate the
+        // score and its bound
+        return nearest(r -> -checkScore(upperBound.call(r)), e -> -checkScore(score.call(e)),
+                Double.POSITIVE_INFINITY).take(k);
+    }
+
+    private static double checkScore(double score) {
+        // a key of +infinity or NaN would not be queued by the traversal
+        Preconditions.checkArgument(score > Double.NEGATIVE_INFINITY,
+                "score must be greater than -infinity: " + score);
+        return score;
+    }
+
+    /**
+     * Returns the entries strictly less than <code>maxDistance</code> away
+     * according to the given distance functions in ascending order of distance.
+     * Entries are found lazily by a best-first traversal so an unsubscribe (for
+     * example by <code>take</code>) stops the traversal.
+     * 
+     * @param nodeDistance
+     *            lower bound on the distance of anything inside a node's mbr
+     * @param entryDistance
+     *            distance of an entry
+     * @param maxDistance
+     *            strict max distance of returned entries
+     * @return entries in ascending order of distance
+     */
+    private Observable<Entry<T, S>> nearest(final Func1<? super Rectangle, Double> nodeDistance,
+            final Func1<? super Entry<T, S>, Double> entryDistance, final double maxDistance) {
+        return nearest(nodeDistance, entryDistance, Functions.alwaysTrue(), maxDistance);
+    }
+
+    private Observable<Entry<T, S>> nearest(final Func1<? super Rectangle, Double> nodeDistance,
+            final Func1<? super Entry<T, S>, Double> entryDistance,
+            final Func1<? super Entry<T, S>, Boolean> entryFilter, final double maxDistance) {
+        return root
+                .map(node -> Observable.from(
+                        (Iterable<Entry<T, S>>) () -> new NearestIterator<T, S>(node,
+                                nodeDistance, entryDistance, entryFilter, maxDistance)))
+                .orElseGet(Observable::empty);
+    }
+
+    /**
+     * Returns the number of {@link Entry}s in the R-tree whose minimum bounding
+     * rectangle intersects with the given rectangle. When the rectangle contains
+     * the minimum bounding rectangle of a node the cached entry count of that node
+     * is used so none of its entries are visited. This is typically much cheaper
+     * than <code>search(r).count()</code>.
+     * 
+     * @param r
+     *            rectangle to check intersection with the entry mbr
+     * @return the number of entries that intersect with the rectangle r
+     */
+    public int count(final Rectangle r) {
+        return root.map(node -> count(node, r)).orElse(0);
+    }
+
+    private static <T, S extends Geometry> int count(Node<T, S> node, Rectangle r) {
+        Rectangle mbr = node.geometry().mbr();
+        if (!mbr.intersects(r)) {
+            return 0;
+        } else if (GeometryUtil.contains(r.x1(), r.y1(), r.x2(), r.y2(), mbr.x1(), mbr.y1(),
+                mbr.x2(), mbr.y2())) {
+            return NonLeafHelper.entryCount(node);
+        } else if (node instanceof Leaf) {
+            Leaf<T, S> leaf = (Leaf<T, S>) node;
+            int count = 0;
+            for (int i = 0; i < leaf.count(); i++) {
+                if (leaf.entry(i).geometry().intersects(r)) {
+                    count++;
+                }
+            }
+            return count;
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            int count = 0;
+            for (int i = 0; i < nonLeaf.count(); i++) {
+                count += count(nonLeaf.child(i), r);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Returns the combined summary under the given {@link Monoid} of the values of
+     * the {@link Entry}s in the R-tree whose geometry intersects with the given
+     * rectangle. If the same monoid instance was configured with
+     * {@link Builder#aggregate(Monoid)} then nodes whose mbr is contained in the
+     * rectangle contribute their cached summary without visiting their entries.
+     * Otherwise every matching entry is visited.
+     * 
+     * @param r
+     *            rectangle to check intersection with the entry mbr
+     * @param monoid
+     *            summarises entry values
+     * @param <A>
+     *            the summary type
+     * @return summary of the values of the entries that intersect with r
+     */
+    public <A> A aggregate(final Rectangle r, final Monoid<? super T, A> monoid) {
+        return root.map(node -> aggregate(node, r, monoid)).orElseGet(monoid::identity);
+    }
+
+    private static <T, S extends Geometry, A> A aggregate(Node<T, S> node, Rectangle r,
+            Monoid<? super T, A> monoid) {
+        Rectangle mbr = node.geometry().mbr();
+        if (!mbr.intersects(r)) {
+            return monoid.identity();
+        } else if (GeometryUtil.contains(r.x1(), r.y1(), r.x2(), r.y2(), mbr.x1(), mbr.y1(),
+                mbr.x2(), mbr.y2())) {
+            return NonLeafHelper.aggregate(node, monoid);
+        } else if (node instanceof Leaf) {
+            Leaf<T, S> leaf = (Leaf<T, S>) node;
+            A a = monoid.identity();
+            for (int i = 0; i < leaf.count(); i++) {
+                Entry<T, S> entry = leaf.entry(i);
+                if (entry.geometry().intersects(r)) {
+                    a = monoid.combine(a, monoid.summarise(entry.value()));
+                }
+            }
+            return a;
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            A a = monoid.identity();
+            for (int i = 0; i < nonLeaf.count(); i++) {
+                a = monoid.combine(a, aggregate(nonLeaf.child(i), r, monoid));
+            }
+            return a;
+        }
+    }
+
+    /**
+     * Passes each {@link Entry} in the R-tree whose minimum bounding rectangle
+     * intersects with the given rectangle to the visitor, synchronously on the
+     * calling thread, until the visitor returns false. No {@link Observable} or
+     * other per-search objects are created so this is the cheapest way to run
+     * many small searches.
+     * 
+     * @param r
+     *            rectangle to check intersection with the entry mbr
+     * @param visitor
+     *            receives the matching entries, returns false to stop the search
+     * @return false if the visitor stopped the search, true if every matching
+     *         entry was visited
+     */
+    public boolean search(final Rectangle r, final EntryVisitor<T, S> visitor) {
+        Conditions.Intersects condition = Conditions.intersects(r);
+        return !root.isPresent() || search(root.get(), condition, false, visitor);
+    }
+
+    private static <T, S extends Geometry> boolean search(Node<T, S> node,
+            Conditions.Intersects condition, boolean covered, EntryVisitor<T, S> visitor) {
+        if (!covered) {
+            Rectangle mbr = node.geometry().mbr();
+            if (!condition.intersects(mbr)) {
+                return true;
+            }
+            // nothing below a covered node is tested
+            covered = condition.covers(mbr);
+        }
+        if (node instanceof Leaf) {
+            Leaf<T, S> leaf = (Leaf<T, S>) node;
+            int count = leaf.count();
+            for (int i = 0; i < count; i++) {
+                Entry<T, S> entry = leaf.entry(i);
+                if ((covered || condition.intersects(entry.geometry())) && !visitor.visit(entry)) {
+                    return false;
+                }
+            }
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            int count = nonLeaf.count();
+            for (int i = 0; i < count; i++) {
+                if (!search(nonLeaf.child(i), condition, covered, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the {@link Entry}s in the R-tree whose minimum bounding rectangle
+     * intersects with the given rectangle, searching synchronously until the
+     * budget runs out. See {@link #search(Query, Budget)}.
+     * 
+     * @param r
+     *            rectangle to check intersection with the entry mbr
+     * @param budget
+     *            limits on the nodes opened and time taken
+     * @return the entries found and whether the search completed
+     */
+    public SearchResult<T, S> search(final Rectangle r, final Budget budget) {
+        return search(Conditions.intersects(r), budget);
+    }
+
+    /**
+     * Returns the {@link Entry}s in the R-tree whose geometry matches the query,
+     * searching synchronously on the calling thread until the search finishes or
+     * the budget runs out (a maximum number of nodes opened and/or a timeout).
+     * When the budget runs out the entries found so far are returned and
+     * {@link SearchResult#isComplete()} is false, so a pathological query (such
+     * as a huge window) is bounded without unsubscribing from another thread.
+     * 
+     * @param query
+     *            combination of search conditions
+     * @param budget
+     *            limits on the nodes opened and time taken
+     * @return the entries found and whether the search completed
+     */
+    public SearchResult<T, S> search(final Query query, final Budget budget) {
+        return search((Func1<? super Geometry, Boolean>) query, budget);
+    }
+
+    private SearchResult<T, S> search(final Func1<? super Geometry, Boolean> condition,
+            final Budget budget) {
+        Preconditions.checkNotNull(budget);
+        return root.map(node -> BudgetedSearch.search(node, condition, budget)).orElseGet(
+                () -> new SearchResult<T, S>(Collections.<Entry<T, S>> emptyList(), true));
+    }
+
+    /**
+     * Depth-first traversal of the R-tree with a caller-supplied pruning
+     * function. The children of a {@link NonLeaf} and the entries of a
+     * {@link Leaf} are only visited if <code>nodeFilter</code> returns true for
+     * that node, and every entry of a visited leaf is passed to the visitor
+     * (which can apply its own test) until the visitor returns false.
+     * 
+     * @param nodeFilter
+     *            returns false for a node if nothing below it should be visited
+     * @param visitor
+     *            receives the entries of visited leaves, returns false to stop
+     *            the traversal
+     * @return false if the visitor stopped the traversal, true otherwise
+     */
+    public boolean visit(final Func1<? super Node<T, S>, Boolean> nodeFilter,
+            final EntryVisitor<T, S> visitor) {
+        return !root.isPresent() || visit(root.get(), nodeFilter, visitor);
+    }
+
+    private static <T, S extends Geometry> boolean visit(Node<T, S> node,
+            Func1<? super Node<T, S>, Boolean> nodeFilter, EntryVisitor<T, S> visitor) {
+        if (!nodeFilter.call(node)) {
+            return true;
+        } else if (node instanceof Leaf) {
+            Leaf<T, S> leaf = (Leaf<T, S>) node;
+            int count = leaf.count();
+            for (int i = 0; i < count; i++) {
+                if (!visitor.visit(leaf.entry(i))) {
+                    return false;
+                }
+            }
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            int count = nonLeaf.count();
+            for (int i = 0; i < count; i++) {
+                if (!visit(nonLeaf.child(i), nodeFilter, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Returns all entries in the tree as an {@link Observable} sequence.
      * 
@@ -824,6 +1669,432 @@ public final class RTree<T, S extends Geometry> {
         return search(ALWAYS_TRUE);
     }
 
+    /**
+     * Returns an {@link Iterator} over all {@link Entry}s in the R-tree whose
+     * minimum bounding rectangle intersects with the given rectangle. Entries are
+     * found as they are pulled from the iterator without going through
+     * {@link Observable}.
+     * 
+     * @param r
+     *            rectangle to check intersection with the entry mbr
+     * @return iterator over the entries that intersect with the rectangle r
+     */
+    public Iterator<Entry<T, S>> iterator(final Rectangle r) {
+        return Spliterators.iterator(spliterator(intersects(r)));
+    }
+
+    /**
+     * Returns a {@link Stream} of all {@link Entry}s in the R-tree whose minimum
+     * bounding rectangle intersects with the given rectangle. The stream splits at
+     * node boundaries so {@link Stream#parallel()} searches subtrees concurrently.
+     * 
+     * @param r
+     *            rectangle to check intersection with the entry mbr
+     * @return stream of the entries that intersect with the rectangle r
+     */
+    public Stream<Entry<T, S>> stream(final Rectangle r) {
+        return StreamSupport.stream(spliterator(intersects(r)), false);
+    }
+
+    /**
+     * Returns a {@link Stream} of all entries in the R-tree. The stream splits at
+     * node boundaries so {@link Stream#parallel()} scans subtrees concurrently.
+     * 
+     * @return stream of all entries in the R-tree
+     */
+    public Stream<Entry<T, S>> stream() {
+        return StreamSupport.stream(spliterator(ALWAYS_TRUE), false);
+    }
+
+    private Spliterator<Entry<T, S>> spliterator(Func1<? super Geometry, Boolean> condition) {
+        return root
+                .<Spliterator<Entry<T, S>>> map(
+                        node -> new SearchSpliterator<T, S>(node, condition, size))
+                .orElseGet(Spliterators::emptySpliterator);
+    }
+
+    /**
+     * Returns the pairs of entries, one from this tree and one from the other,
+     * whose geometries satisfy the predicate (a spatial join). The predicate
+     * must only be true when the minimum bounding rectangles of its arguments
+     * intersect (for example {@link Geometry#intersects(Rectangle)} of the
+     * second's mbr), because the two trees are traversed together and only
+     * pairs of nodes whose mbrs intersect are opened.
+     * 
+     * <p>
+     * Each node pair is visited once rather than running a search of this tree
+     * for every entry of the other. Use {@link #joinStream(RTree, Func2)} to
+     * run the join in parallel.
+     * 
+     * @param <T2>
+     *            value type of the other tree
+     * @param <S2>
+     *            geometry type of the other tree
+     * @param other
+     *            tree to join with
+     * @param predicate
+     *            condition on the geometries of a pair of entries
+     * @return pairs of entries satisfying the predicate
+     */
+    public <T2, S2 extends Geometry> Observable<EntryPair<T, S, T2, S2>> join(
+            final RTree<T2, S2> other, final Func2<? super S, ? super S2, Boolean> predicate) {
+        return Observable.from((Iterable<EntryPair<T, S, T2, S2>>) () -> Spliterators
+                .iterator(joinSpliterator(other, RECTANGLES_INTERSECT, predicate)));
+    }
+
+    /**
+     * Returns the pairs of entries, one from this tree and one from the other,
+     * that are strictly less than <code>maxDistance</code> apart according to
+     * the distance function (a distance join). The distance function must never
+     * be less than the distance between the minimum bounding rectangles of its
+     * arguments. Only pairs of nodes whose mbrs lie within
+     * <code>maxDistance</code> of each other are opened.
+     * 
+     * @param <T2>
+     *            value type of the other tree
+     * @param <S2>
+     *            geometry type of the other tree
+     * @param other
+     *            tree to join with
+     * @param maxDistance
+     *            strict max distance between the entries of a pair
+     * @param distance
+     *            distance function between geometries
+     * @return pairs of entries less than maxDistance apart
+     */
+    public <T2, S2 extends Geometry> Observable<EntryPair<T, S, T2, S2>> join(
+            final RTree<T2, S2> other, final double maxDistance,
+            final Func2<? super S, ? super S2, Double> distance) {
+        return Observable.from((Iterable<EntryPair<T, S, T2, S2>>) () -> Spliterators
+                .iterator(joinSpliterator(other, rectanglesWithin(maxDistance),
+                        (a, b) -> distance.call(a, b) < maxDistance)));
+    }
+
+    /**
+     * Returns a {@link Stream} of the pairs of entries returned by
+     * {@link #join(RTree, Func2)}. The stream splits at node pairs so
+     * {@link Stream#parallel()} joins disjoint parts of the trees concurrently
+     * on the fork/join pool.
+     * 
+     * @param <T2>
+     *            value type of the other tree
+     * @param <S2>
+     *            geometry type of the other tree
+     * @param other
+     *            tree to join with
+     * @param predicate
+     *            condition on the geometries of a pair of entries
+     * @return stream of pairs of entries satisfying the predicate
+     */
+    public <T2, S2 extends Geometry> Stream<EntryPair<T, S, T2, S2>> joinStream(
+            final RTree<T2, S2> other, final Func2<? super S, ? super S2, Boolean> predicate) {
+        return StreamSupport.stream(joinSpliterator(other, RECTANGLES_INTERSECT, predicate),
+                false);
+    }
+
+    /**
+     * Returns a {@link Stream} of the pairs of entries returned by
+     * {@link #join(RTree, double, Func2)}. See {@link #joinStream(RTree, Func2)}.
+     * 
+     * @param <T2>
+     *            value type of the other tree
+     * @param <S2>
+     *            geometry type of the other tree
+     * @param other
+     *            tree to join with
+     * @param maxDistance
+     *            strict max distance between the entries of a pair
+     * @param distance
+     *            distance function between geometries
+     * @return stream of pairs of entries less than maxDistance apart
+     */
+    public <T2, S2 extends Geometry> Stream<EntryPair<T, S, T2, S2>> joinStream(
+            final RTree<T2, S2> other, final double maxDistance,
+            final Func2<? super S, ? super S2, Double> distance) {
+        return StreamSupport.stream(joinSpliterator(other, rectanglesWithin(maxDistance),
+                (a, b) -> distance.call(a, b) < maxDistance), false);
+    }
+
+    /**
+     * Returns each unordered pair of distinct entries of this tree whose
+     * geometries satisfy the predicate (a self-join, for example the
+     * broad-phase of collision detection). Each pair is returned once, in no
+     * particular order of its two entries. As for
+     * {@link #join(RTree, Func2)} the predicate must only be true when the
+     * minimum bounding rectangles of its arguments intersect.
+     * 
+     * @param predicate
+     *            condition on the geometries of a pair of entries
+     * @return pairs of entries satisfying the predicate
+     */
+    public Observable<EntryPair<T, S, T, S>> selfJoin(
+            final Func2<? super S, ? super S, Boolean> predicate) {
+        return Observable.from((Iterable<EntryPair<T, S, T, S>>) () -> Spliterators
+                .iterator(selfJoinSpliterator(RECTANGLES_INTERSECT, predicate)));
+    }
+
+    /**
+     * Returns each unordered pair of distinct entries of this tree that are
+     * strictly less than <code>maxDistance</code> apart according to the
+     * distance function. See {@link #selfJoin(Func2)} and
+     * {@link #join(RTree, double, Func2)}.
+     * 
+     * @param maxDistance
+     *            strict max distance between the entries of a pair
+     * @param distance
+     *            distance function between geometries
+     * @return pairs of entries less than maxDistance apart
+     */
+    public Observable<EntryPair<T, S, T, S>> selfJoin(final double maxDistance,
+            final Func2<? super S, ? super S, Double> distance) {
+        return Observable.from((Iterable<EntryPair<T, S, T, S>>) () -> Spliterators
+                .iterator(selfJoinSpliterator(rectanglesWithin(maxDistance),
+                        (a, b) -> distance.call(a, b) < maxDistance)));
+    }
+
+    /**
+     * Returns a {@link Stream} of the pairs of entries returned by
+     * {@link #selfJoin(Func2)} that can be run in parallel. See
+     * {@link #joinStream(RTree, Func2)}.
+     * 
+     * @param predicate
+     *            condition on the geometries of a pair of entries
+     * @return stream of pairs of entries satisfying the predicate
+     */
+    public Stream<EntryPair<T, S, T, S>> selfJoinStream(
+            final Func2<? super S, ? super S, Boolean> predicate) {
+        return StreamSupport.stream(selfJoinSpliterator(RECTANGLES_INTERSECT, predicate), false);
+    }
+
+    /**
+     * Returns a {@link Stream} of the pairs of entries returned by
+     * {@link #selfJoin(double, Func2)} that can be run in parallel. See
+     * {@link #joinStream(RTree, Func2)}.
+     * 
+     * @param maxDistance
+     *            strict max distance between the entries of a pair
+     * @param distance
+     *            distance function between geometries
+     * @return stream of pairs of entries less than maxDistance apart
+     */
+    public Stream<EntryPair<T, S, T, S>> selfJoinStream(final double maxDistance,
+            final Func2<? super S, ? super S, Double> distance) {
+        return StreamSupport.stream(selfJoinSpliterator(rectanglesWithin(maxDistance),
+                (a, b) -> distance.call(a, b) < maxDistance), false);
+    }
+
+    /**
+     * Returns the k closest pairs (k=maxCount) of entries, one from this tree and
+     * one from the other, in ascending order of the distance between them
+     * according to the distance function. The distance function must never be
+     * less than the distance between the minimum bounding rectangles of its
+     * arguments.
+     * 
+     * <p>
+     * Pairs of nodes are expanded best-first in order of the distance between
+     * their mbrs and pairs that cannot be among the k closest found so far are
+     * never queued, so only the parts of the trees that are close to each other
+     * are opened.
+     * 
+     * @param <T2>
+     *            value type of the other tree
+     * @param <S2>
+     *            geometry type of the other tree
+     * @param other
+     *            the other tree
+     * @param maxCount
+     *            max number of pairs to return
+     * @param distance
+     *            distance function between geometries
+     * @return closest pairs of entries to maxCount, in ascending order of
+     *         distance
+     */
+    public <T2, S2 extends Geometry> Observable<EntryPair<T, S, T2, S2>> closestPairs(
+            final RTree<T2, S2> other, final int maxCount,
+            final Func2<? super S, ? super S2, Double> distance) {
+        Preconditions.checkArgument(maxCount > 0, "maxCount must be positive");
+        if (root.isPresent() && other.root.isPresent()) {
+            final Node<T, S> a = root.get();
+            final Node<T2, S2> b = other.root.get();
+            return Observable.from((Iterable<EntryPair<T, S, T2, S2>>) () -> new ClosestPairsIterator<T, S, T2, S2>(
+                    a, b, distance, maxCount));
+        } else {
+            return Observable.empty();
+        }
+    }
+
+    /**
+     * Returns the k closest pairs (k=maxCount) of entries, one from this tree and
+     * one from the other, in ascending order of the distance from the geometry
+     * of the first to the minimum bounding rectangle of the second (which is the
+     * exact distance for points). See {@link #closestPairs(RTree, int, Func2)}.
+     * 
+     * @param <T2>
+     *            value type of the other tree
+     * @param <S2>
+     *            geometry type of the other tree
+     * @param other
+     *            the other tree
+     * @param maxCount
+     *            max number of pairs to return
+     * @return closest pairs of entries to maxCount, in ascending order of
+     *         distance
+     */
+    public <T2, S2 extends Geometry> Observable<EntryPair<T, S, T2, S2>> closestPairs(
+            final RTree<T2, S2> other, final int maxCount) {
+        return closestPairs(other, maxCount, (g, h) -> g.distance(h.mbr()));
+    }
+
+    /**
+     * Returns, for each entry of this tree, its k nearest entries in the other
+     * tree (k=maxCount) that are strictly less than <code>maxDistance</code>
+     * from it, as pairs of (entry of this tree, neighbour). The pairs are grouped
+     * by entry of this tree and are in ascending order of distance within each
+     * group. Distances are from the geometry of a neighbour to the minimum
+     * bounding rectangle of the entry, as for {@link #nearest(Rectangle, int)}.
+     * 
+     * <p>
+     * Rather than running a nearest search for every entry, the entries of this
+     * tree are taken a leaf at a time so that neighbouring queries share one
+     * best-first traversal of the other tree. Use
+     * {@link #nearestJoinStream(RTree, double, int)} to process leaves in
+     * parallel.
+     * 
+     * @param <T2>
+     *            value type of the other tree
+     * @param <S2>
+     *            geometry type of the other tree
+     * @param other
+     *            tree to find neighbours in
+     * @param maxDistance
+     *            strict max distance of a neighbour
+     * @param maxCount
+     *            max number of neighbours of each entry
+     * @return pairs of entry and neighbour
+     */
+    public <T2, S2 extends Geometry> Observable<EntryPair<T, S, T2, S2>> nearestJoin(
+            final RTree<T2, S2> other, final double maxDistance, final int maxCount) {
+        return Observable.from((Iterable<EntryPair<T, S, T2, S2>>) () -> nearestJoinStream(other,
+                maxDistance, maxCount).iterator());
+    }
+
+    /**
+     * Returns, for each entry of this tree, its k nearest entries in the other
+     * tree (k=maxCount) without any bound on their distance. See
+     * {@link #nearestJoin(RTree, double, int)}.
+     * 
+     * @param <T2>
+     *            value type of the other tree
+     * @param <S2>
+     *            geometry type of the other tree
+     * @param other
+     *            tree to find neighbours in
+     * @param maxCount
+     *            max number of neighbours of each entry
+     * @return pairs of entry and neighbour
+     */
+    public <T2, S2 extends Geometry> Observable<EntryPair<T, S, T2, S2>> nearestJoin(
+            final RTree<T2, S2> other, final int maxCount) {
+        return nearestJoin(other, Double.POSITIVE_INFINITY, maxCount);
+    }
+
+    /**
+     * Returns a {@link Stream} of the pairs returned by
+     * {@link #nearestJoin(RTree, double, int)}. The stream splits between leaves
+     * of this tree so {@link Stream#parallel()} finds the neighbours of
+     * different leaves concurrently on the fork/join pool.
+     * 
+     * @param <T2>
+     *            value type of the other tree
+     * @param <S2>
+     *            geometry type of the other tree
+     * @param other
+     *            tree to find neighbours in
+     * @param maxDistance
+     *            strict max distance of a neighbour
+     * @param maxCount
+     *            max number of neighbours of each entry
+     * @return stream of pairs of entry and neighbour
+     */
+    public <T2, S2 extends Geometry> Stream<EntryPair<T, S, T2, S2>> nearestJoinStream(
+            final RTree<T2, S2> other, final double maxDistance, final int maxCount) {
+        Preconditions.checkArgument(maxCount > 0, "maxCount must be positive");
+        if (!other.root.isPresent()) {
+            return Stream.empty();
+        }
+        final Node<T2, S2> otherRoot = other.root.get();
+        return leaves().stream().flatMap(
+                leaf -> NearestJoin.join(leaf, otherRoot, maxCount, maxDistance).stream());
+    }
+
+    /**
+     * Returns a {@link Stream} of the pairs returned by
+     * {@link #nearestJoin(RTree, int)}. See
+     * {@link #nearestJoinStream(RTree, double, int)}.
+     * 
+     * @param <T2>
+     *            value type of the other tree
+     * @param <S2>
+     *            geometry type of the other tree
+     * @param other
+     *            tree to find neighbours in
+     * @param maxCount
+     *            max number of neighbours of each entry
+     * @return stream of pairs of entry and neighbour
+     */
+    public <T2, S2 extends Geometry> Stream<EntryPair<T, S, T2, S2>> nearestJoinStream(
+            final RTree<T2, S2> other, final int maxCount) {
+        return nearestJoinStream(other, Double.POSITIVE_INFINITY, maxCount);
+    }
+
+    // leaves in traversal order so that neighbouring leaves stay together when
+    // the list is split
+    private List<Leaf<T, S>> leaves() {
+        List<Leaf<T, S>> list = new ArrayList<Leaf<T, S>>();
+        if (root.isPresent()) {
+            addLeaves(root.get(), list);
+        }
+        return list;
+    }
+
+    private static <T, S extends Geometry> void addLeaves(Node<T, S> node, List<Leaf<T, S>> list) {
+        if (node instanceof Leaf) {
+            list.add((Leaf<T, S>) node);
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            for (int i = 0; i < nonLeaf.count(); i++) {
+                addLeaves(nonLeaf.child(i), list);
+            }
+        }
+    }
+
+    private static final Func2<Rectangle, Rectangle, Boolean> RECTANGLES_INTERSECT = (a,
+            b) -> a.intersects(b);
+
+    private static Func2<Rectangle, Rectangle, Boolean> rectanglesWithin(
+            final double maxDistance) {
+        return (a, b) -> a.distance(b) < maxDistance;
+    }
+
+    private <T2, S2 extends Geometry> Spliterator<EntryPair<T, S, T2, S2>> joinSpliterator(
+            RTree<T2, S2> other, Func2<? super Rectangle, ? super Rectangle, Boolean> nodeCondition,
+            Func2<? super S, ? super S2, Boolean> entryCondition) {
+        if (root.isPresent() && other.root.isPresent()) {
+            return new JoinSpliterator<T, S, T2, S2>(root.get(), other.root.get(), nodeCondition,
+                    entryCondition, Math.max(size, other.size));
+        } else {
+            return Spliterators.emptySpliterator();
+        }
+    }
+
+    private Spliterator<EntryPair<T, S, T, S>> selfJoinSpliterator(
+            Func2<? super Rectangle, ? super Rectangle, Boolean> nodeCondition,
+            Func2<? super S, ? super S, Boolean> entryCondition) {
+        return root.<Spliterator<EntryPair<T, S, T, S>>> map(
+                node -> JoinSpliterator.self(node, nodeCondition, entryCondition, size))
+                .orElseGet(Spliterators::emptySpliterator);
+    }
+
     /**
      * Returns a {@link Visualizer} for an image of given width and height and
      * restricted to the given view of the coordinates. The points in the view are
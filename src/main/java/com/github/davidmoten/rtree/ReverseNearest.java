@@ -0,0 +1,188 @@
+package com.github.davidmoten.rtree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.geometry.internal.GeometryUtil;
+import com.github.davidmoten.rtree.internal.Functions;
+
+/**
+ * Reverse k-nearest-neighbour search using the TPL algorithm of Tao, Papadias
+ * and Lian. An entry p has the query point q among its k nearest neighbours
+ * when fewer than k other entries are strictly closer to p than q is.
+ *
+ * <p>
+ * Filter step: the tree is traversed best-first from q and every entry reached
+ * becomes a candidate. The perpendicular bisector of q and a candidate c bounds
+ * the half-plane of points closer to c than to q, so a node lying wholly inside
+ * the half-planes of k candidates cannot contain a result and is not opened
+ * (likewise for an entry). Refinement step: each remaining candidate is
+ * checked with a nearest search bounded by its distance from q.
+ *
+ * <p>
+ * Entries are treated as points; geometries other than points are represented
+ * by the centre of their minimum bounding rectangle.
+ */
+final class ReverseNearest {
+
+    private ReverseNearest() {
+        // prevent instantiation
+    }
+
+    static <T, S extends Geometry> List<Entry<T, S>> search(Node<T, S> root, double qx,
+            double qy, int k) {
+        List<Entry<T, S>> candidates = new ArrayList<Entry<T, S>>();
+        PriorityQueue<Item<T, S>> queue = new PriorityQueue<Item<T, S>>();
+        queue.offer(new Item<T, S>(root.geometry().mbr().distance(Geometries.point(qx, qy)), root,
+                null));
+        while (!queue.isEmpty()) {
+            Item<T, S> item = queue.poll();
+            if (item.entry != null) {
+                Entry<T, S> entry = item.entry;
+                double x = x(entry.geometry());
+                double y = y(entry.geometry());
+                if (!pruned(candidates, qx, qy, x, y, x, y, k)) {
+                    candidates.add(entry);
+                }
+            } else {
+                Rectangle r = item.node.geometry().mbr();
+                if (!pruned(candidates, qx, qy, r.x1(), r.y1(), r.x2(), r.y2(), k)) {
+                    expand(item.node, qx, qy, queue);
+                }
+            }
+        }
+        List<Entry<T, S>> list = new ArrayList<Entry<T, S>>();
+        for (Entry<T, S> candidate : candidates) {
+            if (isResult(root, candidate, candidates, qx, qy, k)) {
+                list.add(candidate);
+            }
+        }
+        return list;
+    }
+
+    private static <T, S extends Geometry> void expand(Node<T, S> node, double qx, double qy,
+            PriorityQueue<Item<T, S>> queue) {
+        if (node instanceof Leaf) {
+            Leaf<T, S> leaf = (Leaf<T, S>) node;
+            for (int i = 0; i < leaf.count(); i++) {
+                Entry<T, S> entry = leaf.entry(i);
+                double d = Math.sqrt(GeometryUtil.distanceSquared(qx, qy, x(entry.geometry()),
+                        y(entry.geometry())));
+                queue.offer(new Item<T, S>(d, null, entry));
+            }
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            for (int i = 0; i < nonLeaf.count(); i++) {
+                Node<T, S> child = nonLeaf.child(i);
+                queue.offer(new Item<T, S>(
+                        GeometryUtil.distance(qx, qy, child.geometry().mbr()), child, null));
+            }
+        }
+    }
+
+    /**
+     * Returns true if every point of the rectangle (x1, y1, x2, y2) is strictly
+     * closer to at least k of the candidates than to q.
+     */
+    private static <T, S extends Geometry> boolean pruned(List<Entry<T, S>> candidates, double qx,
+            double qy, double x1, double y1, double x2, double y2, int k) {
+        int count = 0;
+        for (Entry<T, S> candidate : candidates) {
+            double cx = x(candidate.geometry());
+            double cy = y(candidate.geometry());
+            // the half-plane is convex so it contains the rectangle if it
+            // contains the corners
+            if (closer(cx, cy, qx, qy, x1, y1) && closer(cx, cy, qx, qy, x1, y2)
+                    && closer(cx, cy, qx, qy, x2, y1) && closer(cx, cy, qx, qy, x2, y2)) {
+                count++;
+                if (count == k) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // returns true if (x, y) is strictly closer to c than to q
+    private static boolean closer(double cx, double cy, double qx, double qy, double x, double y) {
+        return GeometryUtil.distanceSquared(x, y, cx, cy) < GeometryUtil.distanceSquared(x, y, qx,
+                qy);
+    }
+
+    private static <T, S extends Geometry> boolean isResult(Node<T, S> root,
+            final Entry<T, S> candidate, List<Entry<T, S>> candidates, double qx, double qy,
+            int k) {
+        final double x = x(candidate.geometry());
+        final double y = y(candidate.geometry());
+        // cheap check against the other candidates first
+        if (pruned(candidates, qx, qy, x, y, x, y, k + 1)) {
+            // the candidate itself is at distance zero so k + 1 are needed
+            return false;
+        }
+        double d = Math.sqrt(GeometryUtil.distanceSquared(x, y, qx, qy));
+        NearestIterator<T, S> it = new NearestIterator<T, S>(root,
+                r -> GeometryUtil.distance(x, y, r),
+                e -> Math.sqrt(GeometryUtil.distanceSquared(x, y, x(e.geometry()),
+                        y(e.geometry()))),
+                Functions.alwaysTrue(), d);
+        // count the entries strictly closer than q, not counting the candidate
+        // itself (compared by equality because some node implementations create
+        // entries on demand)
+        boolean skipped = false;
+        int count = 0;
+        while (it.hasNext()) {
+            Entry<T, S> entry = it.next();
+            if (!skipped && entry.equals(candidate)) {
+                skipped = true;
+            } else {
+                count++;
+                if (count == k) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static double x(Geometry g) {
+        if (g instanceof Point) {
+            return ((Point) g).x();
+        } else {
+            Rectangle r = g.mbr();
+            return (r.x1() + r.x2()) / 2;
+        }
+    }
+
+    private static double y(Geometry g) {
+        if (g instanceof Point) {
+            return ((Point) g).y();
+        } else {
+            Rectangle r = g.mbr();
+            return (r.y1() + r.y2()) / 2;
+        }
+    }
+
+    private static final class Item<T, S extends Geometry> implements Comparable<Item<T, S>> {
+
+        final double distance;
+        final Node<T, S> node;
+        final Entry<T, S> entry;
+
+        Item(double distance, Node<T, S> node, Entry<T, S> entry) {
+            this.distance = distance;
+            this.node = node;
+            this.entry = entry;
+        }
+
+        @Override
+        public int compareTo(Item<T, S> o) {
+            return Double.compare(distance, o.distance);
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.github.davidmoten.rtree;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+
+/**
+ * The entries found by a search with a {@link Budget} and whether the search
+ * finished before the budget ran out. When the search is not complete the
+ * entries are a subset of the full result (every entry returned matches).
+ * 
+ * @param <T>
+ *            value type
+ * @param <S>
+ *            geometry type
+ */
+public final class SearchResult<T, S extends Geometry> {
+
+    private final List<Entry<T, S>> entries;
+    private final boolean complete;
+
+    SearchResult(List<Entry<T, S>> entries, boolean complete) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.complete = complete;
+    }
+
+    /**
+     * Returns the matching entries found, in traversal order.
+     * 
+     * @return matching entries
+     */
+    public List<Entry<T, S>> entries() {
+        return entries;
+    }
+
+    /**
+     * Returns true if the whole tree was searched, false if the search stopped
+     * because its budget ran out and {@link #entries()} may be partial.
+     * 
+     * @return true if the result is complete
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult [entries=" + entries + ", complete=" + complete + "]";
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.github.davidmoten.rtree;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.internal.Conditions;
+
+import rx.functions.Func1;
+
+/**
+ * Pull-based search of an R-tree that does not go through the Rx layer. Work
+ * is held as a deque of nodes still to be visited (plus the leaf currently
+ * being scanned) and {@link #trySplit()} hands over whole subtrees at
+ * {@link NonLeaf} child boundaries so that parallel streams fan out across
+ * the tree.
+ *
+ * @param <T>
+ *            the entry value type
+ * @param <S>
+ *            the entry geometry type
+ */
+final class SearchSpliterator<T, S extends Geometry> implements Spliterator<Entry<T, S>> {
+
+    private final Func1<? super Geometry, Boolean> condition;
+
+    // nodes that have not been tested against the condition yet, the head of the
+    // deque is visited next
+    private final Deque<Node<T, S>> nodes;
+
+    // leaf currently being scanned (null if none)
+    private Leaf<T, S> leaf;
+    private int position;
+
+    private long estimatedSize;
+
+    SearchSpliterator(Node<T, S> root, Func1<? super Geometry, Boolean> condition,
+            long estimatedSize) {
+        this(new ArrayDeque<Node<T, S>>(), condition, estimatedSize);
+        nodes.push(root);
+    }
+
+    private SearchSpliterator(Deque<Node<T, S>> nodes, Func1<? super Geometry, Boolean> condition,
+            long estimatedSize) {
+        this.nodes = nodes;
+        this.condition = condition;
+        this.estimatedSize = estimatedSize;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Entry<T, S>> action) {
+        while (true) {
+            if (leaf != null) {
+                int count = leaf.count();
+                while (position < count) {
+                    Entry<T, S> entry = leaf.entry(position++);
+                    if (condition.call(entry.geometry())) {
+                        action.accept(entry);
+                        return true;
+                    }
+                }
+                leaf = null;
+            }
+            if (!nextLeaf()) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Entry<T, S>> action) {
+        while (true) {
+            if (leaf != null) {
+                int count = leaf.count();
+                while (position < count) {
+                    Entry<T, S> entry = leaf.entry(position++);
+                    if (condition.call(entry.geometry())) {
+                        action.accept(entry);
+                    }
+                }
+                leaf = null;
+            }
+            if (!nextLeaf()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Descends from the pending nodes until a leaf satisfying the condition is
+     * found.
+     *
+     * @return true if and only if a leaf was found
+     */
+    private boolean nextLeaf() {
+        while (!nodes.isEmpty()) {
+            Node<T, S> node = nodes.pop();
+            if (Conditions.mayMatchWithin(condition, node.geometry().mbr())) {
+                if (node instanceof Leaf) {
+                    leaf = (Leaf<T, S>) node;
+                    position = 0;
+                    return true;
+                } else {
+                    pushChildren((NonLeaf<T, S>) node);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void pushChildren(NonLeaf<T, S> node) {
+        // push in reverse so that children are visited in order
+        for (int i = node.count() - 1; i >= 0; i--) {
+            nodes.push(node.child(i));
+        }
+    }
+
+    @Override
+    public Spliterator<Entry<T, S>> trySplit() {
+        // if a single non-leaf is pending then open it up so that its children can
+        // be shared out
+        while (nodes.size() == 1 && nodes.peek() instanceof NonLeaf) {
+            NonLeaf<T, S> node = (NonLeaf<T, S>) nodes.pop();
+            if (Conditions.mayMatchWithin(condition, node.geometry().mbr())) {
+                pushChildren(node);
+            }
+        }
+        int n = nodes.size();
+        if (n < 2) {
+            return null;
+        }
+        // hand over the half of the pending subtrees that would be visited last
+        Deque<Node<T, S>> other = new ArrayDeque<Node<T, S>>(n / 2);
+        for (int i = 0; i < n / 2; i++) {
+            other.push(nodes.pollLast());
+        }
+        estimatedSize = estimatedSize >>> 1;
+        return new SearchSpliterator<T, S>(other, condition, estimatedSize);
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimatedSize;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL | IMMUTABLE;
+    }
+
+}
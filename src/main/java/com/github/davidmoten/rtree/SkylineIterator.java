@@ -0,0 +1,151 @@
+package com.github.davidmoten.rtree;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+/**
+ * Returns the skyline of an R-tree (the entries not dominated by any other
+ * entry when both x and y are minimised) using the branch-and-bound skyline
+ * (BBS) algorithm of Papadias, Tao, Fu and Seeger. An entry is represented by
+ * the lower left corner of its minimum bounding rectangle (the point itself for
+ * a point) and dominates another if it is no greater in x and y and less in at
+ * least one.
+ *
+ * <p>
+ * Nodes and entries share a priority queue keyed by x1 + y1 of their mbr.
+ * Anything that dominates an entry has a smaller key so every entry reaching
+ * the head of the queue undominated by the skyline found so far is in the
+ * skyline, and results are produced progressively. A node is not opened when
+ * the lower left corner of its mbr is dominated, as then so is everything
+ * inside it.
+ *
+ * @param <T>
+ *            the entry value type
+ * @param <S>
+ *            the entry geometry type
+ */
+final class SkylineIterator<T, S extends Geometry> implements Iterator<Entry<T, S>> {
+
+    private final PriorityQueue<Item<T, S>> queue = new PriorityQueue<Item<T, S>>();
+
+    // the skyline found so far keyed by x. Along the skyline y decreases as x
+    // increases so the floor entry of x has the least y of the skyline points
+    // no greater in x.
+    private final TreeMap<Double, Double> skyline = new TreeMap<Double, Double>();
+
+    private Entry<T, S> next;
+    private long sequence;
+
+    SkylineIterator(Node<T, S> root) {
+        offer(root.geometry().mbr(), root, null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !queue.isEmpty()) {
+            Item<T, S> item = queue.poll();
+            if (!dominated(item.x, item.y)) {
+                if (item.entry != null) {
+                    skyline.put(item.x, item.y);
+                    next = item.entry;
+                } else {
+                    expand(item.node);
+                }
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Entry<T, S> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Entry<T, S> result = next;
+        next = null;
+        return result;
+    }
+
+    private void expand(Node<T, S> node) {
+        if (node instanceof Leaf) {
+            Leaf<T, S> leaf = (Leaf<T, S>) node;
+            int count = leaf.count();
+            for (int i = 0; i < count; i++) {
+                Entry<T, S> entry = leaf.entry(i);
+                offer(entry.geometry().mbr(), null, entry);
+            }
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            int count = nonLeaf.count();
+            for (int i = 0; i < count; i++) {
+                Node<T, S> child = nonLeaf.child(i);
+                offer(child.geometry().mbr(), child, null);
+            }
+        }
+    }
+
+    private void offer(Rectangle r, Node<T, S> node, Entry<T, S> entry) {
+        if (!dominated(r.x1(), r.y1())) {
+            queue.offer(new Item<T, S>(r.x1(), r.y1(), node, entry, sequence++));
+        }
+    }
+
+    private boolean dominated(double x, double y) {
+        Map.Entry<Double, Double> floor = skyline.floorEntry(x);
+        if (floor == null) {
+            return false;
+        }
+        double sx = floor.getKey();
+        double sy = floor.getValue();
+        return sy <= y && (sx < x || sy < y);
+    }
+
+    private static final class Item<T, S extends Geometry> implements Comparable<Item<T, S>> {
+
+        final double x;
+        final double y;
+        final Node<T, S> node;
+        final Entry<T, S> entry;
+        final long sequence;
+
+        Item(double x, double y, Node<T, S> node, Entry<T, S> entry, long sequence) {
+            this.x = x;
+            this.y = y;
+            this.node = node;
+            this.entry = entry;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Item<T, S> o) {
+            int value = Double.compare(x + y, o.x + o.y);
+            if (value != 0) {
+                return value;
+            }
+            // the sums can be equal after rounding so order by the corner too to
+            // keep anything dominating an entry ahead of it
+            value = Double.compare(x, o.x);
+            if (value != 0) {
+                return value;
+            }
+            value = Double.compare(y, o.y);
+            if (value != 0) {
+                return value;
+            }
+            // at equal corners report entries before expanding nodes
+            if (entry != null && o.entry == null) {
+                return -1;
+            } else if (entry == null && o.entry != null) {
+                return 1;
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+    }
+
+}
@@ -5,6 +5,7 @@ import static com.github.davidmoten.rtree.fbs.FlatBuffersHelper.parseObject;
 import static com.github.davidmoten.rtree.fbs.FlatBuffersHelper.toGeometry;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.github.davidmoten.guavamini.Preconditions;
@@ -18,11 +19,15 @@ import com.github.davidmoten.rtree.fbs.generated.Bounds_;
 import com.github.davidmoten.rtree.fbs.generated.BoxDouble_;
 import com.github.davidmoten.rtree.fbs.generated.BoxFloat_;
 import com.github.davidmoten.rtree.fbs.generated.Entry_;
+import com.github.davidmoten.rtree.fbs.generated.GeometryType_;
 import com.github.davidmoten.rtree.fbs.generated.Geometry_;
 import com.github.davidmoten.rtree.fbs.generated.Node_;
+import com.github.davidmoten.rtree.fbs.generated.PointDouble_;
+import com.github.davidmoten.rtree.fbs.generated.PointFloat_;
 import com.github.davidmoten.rtree.geometry.Geometries;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.Conditions;
 import com.github.davidmoten.rtree.internal.NodeAndEntries;
 import com.github.davidmoten.rtree.internal.NonLeafHelper;
 
@@ -60,16 +65,127 @@ final class NonLeafFlatBuffers<T, S extends Geometry> implements NonLeaf<T, S> {
         // pass through entry and geometry and box instances to be reused for
         // flatbuffers extraction this reduces allocation/gc costs (but of
         // course introduces some mutable ugliness into the codebase)
-        searchWithoutBackpressure(node, criterion, subscriber, deserializer, new Entry_(),
-                new Geometry_(), new Bounds_());
+        if (criterion instanceof Conditions.Intersects) {
+            searchIntersects(node, (Conditions.Intersects) criterion, false, subscriber,
+                    deserializer, new Buffers(), 0);
+        } else {
+            searchWithoutBackpressure(node, criterion, false, subscriber, deserializer,
+                    new Entry_(), new Geometry_(), new Bounds_());
+        }
+    }
+
+    /**
+     * Rectangle search kernel. Node bounds and point and box entry geometries are
+     * read as primitives straight from the buffer and compared with the query
+     * bounds, so no {@link Rectangle} or {@link Geometry} is created except for
+     * matching entries (and circle or line entries that need an exact test).
+     */
+    @SuppressWarnings("unchecked")
+    private static <T, S extends Geometry> void searchIntersects(Node_ node,
+            Conditions.Intersects condition, boolean covered,
+            Subscriber<? super Entry<T, S>> subscriber, Func1<byte[], ? extends T> deserializer,
+            Buffers buffers, int depth) {
+        if (!covered) {
+            Bounds_ bounds = node.mbb(buffers.bounds);
+            final double x1, y1, x2, y2;
+            if (bounds.type() == BoundsType_.BoundsDouble) {
+                BoxDouble_ b = bounds.boxDouble(buffers.boxDouble);
+                x1 = b.minX();
+                y1 = b.minY();
+                x2 = b.maxX();
+                y2 = b.maxY();
+            } else {
+                BoxFloat_ b = bounds.boxFloat(buffers.boxFloat);
+                x1 = b.minX();
+                y1 = b.minY();
+                x2 = b.maxX();
+                y2 = b.maxY();
+            }
+            if (!condition.intersects(x1, y1, x2, y2)) {
+                return;
+            }
+            covered = condition.contains(x1, y1, x2, y2);
+        }
+        int numChildren = node.childrenLength();
+        if (numChildren > 0) {
+            Node_ child = buffers.node(depth);
+            for (int i = 0; i < numChildren; i++) {
+                if (subscriber.isUnsubscribed())
+                    return;
+                node.children(child, i);
+                searchIntersects(child, condition, covered, subscriber, deserializer, buffers,
+                        depth + 1);
+            }
+        } else {
+            Entry_ entry = buffers.entry;
+            Geometry_ geometry = buffers.geometry;
+            int numEntries = node.entriesLength();
+            for (int i = 0; i < numEntries; i++) {
+                if (subscriber.isUnsubscribed())
+                    return;
+                node.entries(entry, i);
+                entry.geometry(geometry);
+                if (covered || intersects(condition, geometry, buffers)) {
+                    final Geometry g = toGeometry(geometry);
+                    T t = parseObject(deserializer, entry);
+                    Entry<T, S> ent = Entries.entry(t, (S) g);
+                    subscriber.onNext(ent);
+                }
+            }
+        }
+    }
+
+    private static boolean intersects(Conditions.Intersects condition, Geometry_ g,
+            Buffers buffers) {
+        byte type = g.type();
+        if (type == GeometryType_.PointFloat) {
+            PointFloat_ p = g.pointFloat(buffers.pointFloat);
+            return condition.intersects(p.x(), p.y(), p.x(), p.y());
+        } else if (type == GeometryType_.PointDouble) {
+            PointDouble_ p = g.pointDouble(buffers.pointDouble);
+            return condition.intersects(p.x(), p.y(), p.x(), p.y());
+        } else if (type == GeometryType_.BoxFloat) {
+            BoxFloat_ b = g.boxFloat(buffers.boxFloat);
+            return condition.intersects(b.minX(), b.minY(), b.maxX(), b.maxY());
+        } else if (type == GeometryType_.BoxDouble) {
+            BoxDouble_ b = g.boxDouble(buffers.boxDouble);
+            return condition.intersects(b.minX(), b.minY(), b.maxX(), b.maxY());
+        } else {
+            // circles and lines need an exact test
+            return condition.intersects(toGeometry(g));
+        }
+    }
+
+    /**
+     * Flatbuffers accessor objects reused for the whole of a search.
+     */
+    private static final class Buffers {
+        final Entry_ entry = new Entry_();
+        final Geometry_ geometry = new Geometry_();
+        final Bounds_ bounds = new Bounds_();
+        final BoxFloat_ boxFloat = new BoxFloat_();
+        final BoxDouble_ boxDouble = new BoxDouble_();
+        final PointFloat_ pointFloat = new PointFloat_();
+        final PointDouble_ pointDouble = new PointDouble_();
+        // one child accessor per level of the tree
+        private Node_[] nodes = new Node_[0];
+
+        Node_ node(int depth) {
+            if (depth >= nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth + 1);
+                nodes[depth] = new Node_();
+            }
+            return nodes[depth];
+        }
     }
 
     @SuppressWarnings("unchecked")
     private static <T, S extends Geometry> void searchWithoutBackpressure(Node_ node,
-            Func1<? super Geometry, Boolean> criterion, Subscriber<? super Entry<T, S>> subscriber,
-            Func1<byte[], ? extends T> deserializer, Entry_ entry, Geometry_ geometry,
-            Bounds_ bounds) {
-        {
+            Func1<? super Geometry, Boolean> criterion, boolean covered,
+            Subscriber<? super Entry<T, S>> subscriber, Func1<byte[], ? extends T> deserializer,
+            Entry_ entry, Geometry_ geometry, Bounds_ bounds) {
+        // once a node is covered by the criterion nothing below it is tested
+        if (!covered) {
             // write bounds from node to bounds variable
             node.mbb(bounds);
             final Rectangle rect;
@@ -80,7 +196,9 @@ final class NonLeafFlatBuffers<T, S extends Geometry> implements NonLeaf<T, S> {
                 BoxFloat_ b = bounds.boxFloat();
                 rect = Geometries.rectangle(b.minX(), b.minY(), b.maxX(), b.maxY());
             }
-            if (!criterion.call(rect)) {
+            if (Conditions.covers(criterion, rect)) {
+                covered = true;
+            } else if (!Conditions.mayMatchWithin(criterion, rect)) {
                 return;
             }
         }
@@ -92,8 +210,8 @@ final class NonLeafFlatBuffers<T, S extends Geometry> implements NonLeaf<T, S> {
                 if (subscriber.isUnsubscribed())
                     return;
                 node.children(child, i);
-                searchWithoutBackpressure(child, criterion, subscriber, deserializer, entry,
-                        geometry, bounds);
+                searchWithoutBackpressure(child, criterion, covered, subscriber, deserializer,
+                        entry, geometry, bounds);
             }
         } else {
             int numEntries = node.entriesLength();
@@ -107,7 +225,7 @@ final class NonLeafFlatBuffers<T, S extends Geometry> implements NonLeaf<T, S> {
                 // set geometry
                 entry.geometry(geometry);
                 final Geometry g = toGeometry(geometry);
-                if (criterion.call(g)) {
+                if (covered || criterion.call(g)) {
                     T t = parseObject(deserializer, entry);
                     Entry<T, S> ent = Entries.entry(t, (S) g);
                     subscriber.onNext(ent);
@@ -138,6 +256,32 @@ final class NonLeafFlatBuffers<T, S extends Geometry> implements NonLeaf<T, S> {
         return node.childrenLength();
     }
 
+    @Override
+    public int entryCount() {
+        return entryCount(node);
+    }
+
+    private static int entryCount(Node_ node) {
+        int numChildren = node.childrenLength();
+        if (numChildren == 0) {
+            return node.entriesLength();
+        } else {
+            long n = node.entryCount();
+            // zero when serialized before counts were recorded, and a uint beyond
+            // int range cannot be a valid count so don't trust it either
+            if (n > 0 && n <= Integer.MAX_VALUE) {
+                return (int) n;
+            }
+            int count = 0;
+            Node_ child = new Node_();
+            for (int i = 0; i < numChildren; i++) {
+                node.children(child, i);
+                count += entryCount(child);
+            }
+            return count;
+        }
+    }
+
     @Override
     public Context<T, S> context() {
         return context;
@@ -119,6 +119,7 @@ public final class SerializerFlatBuffers<T, S extends Geometry> implements Seria
             Node_.startNode_(builder);
             Node_.addChildren(builder, ch);
             Node_.addMbb(builder, b);
+            Node_.addEntryCount(builder, nonLeaf.entryCount());
             return Node_.endNode_(builder);
         }
     }
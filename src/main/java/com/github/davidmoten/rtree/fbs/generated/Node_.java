@@ -27,19 +27,22 @@ public final class Node_ extends Table {
   public int entriesLength() { int o = __offset(8); return o != 0 ? __vector_len(o) : 0; }
   public com.github.davidmoten.rtree.fbs.generated.Entry_.Vector entriesVector() { return entriesVector(new com.github.davidmoten.rtree.fbs.generated.Entry_.Vector()); }
   public com.github.davidmoten.rtree.fbs.generated.Entry_.Vector entriesVector(com.github.davidmoten.rtree.fbs.generated.Entry_.Vector obj) { int o = __offset(8); return o != 0 ? obj.__assign(__vector(o), 4, bb) : null; }
+  public long entryCount() { int o = __offset(10); return o != 0 ? (long)bb.getInt(o + bb_pos) & 0xFFFFFFFFL : 0L; }
 
   public static int createNode_(FlatBufferBuilder builder,
       int mbbOffset,
       int childrenOffset,
-      int entriesOffset) {
-    builder.startTable(3);
+      int entriesOffset,
+      long entryCount) {
+    builder.startTable(4);
+    Node_.addEntryCount(builder, entryCount);
     Node_.addEntries(builder, entriesOffset);
     Node_.addChildren(builder, childrenOffset);
     Node_.addMbb(builder, mbbOffset);
     return Node_.endNode_(builder);
   }
 
-  public static void startNode_(FlatBufferBuilder builder) { builder.startTable(3); }
+  public static void startNode_(FlatBufferBuilder builder) { builder.startTable(4); }
   public static void addMbb(FlatBufferBuilder builder, int mbbOffset) { builder.addOffset(0, mbbOffset, 0); }
   public static void addChildren(FlatBufferBuilder builder, int childrenOffset) { builder.addOffset(1, childrenOffset, 0); }
   public static int createChildrenVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
@@ -47,6 +50,7 @@ public final class Node_ extends Table {
   public static void addEntries(FlatBufferBuilder builder, int entriesOffset) { builder.addOffset(2, entriesOffset, 0); }
   public static int createEntriesVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
   public static void startEntriesVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addEntryCount(FlatBufferBuilder builder, long entryCount) { builder.addInt(3, (int) entryCount, (int) 0L); }
   public static int endNode_(FlatBufferBuilder builder) {
     int o = builder.endTable();
     return o;
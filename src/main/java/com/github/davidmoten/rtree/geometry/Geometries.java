@@ -1,12 +1,17 @@
 package com.github.davidmoten.rtree.geometry;
 
+import java.util.List;
+
+import com.github.davidmoten.guavamini.Preconditions;
 import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
 import com.github.davidmoten.rtree.geometry.internal.CircleDouble;
 import com.github.davidmoten.rtree.geometry.internal.CircleFloat;
 import com.github.davidmoten.rtree.geometry.internal.LineDouble;
 import com.github.davidmoten.rtree.geometry.internal.LineFloat;
+import com.github.davidmoten.rtree.geometry.internal.LineStringDouble;
 import com.github.davidmoten.rtree.geometry.internal.PointDouble;
 import com.github.davidmoten.rtree.geometry.internal.PointFloat;
+import com.github.davidmoten.rtree.geometry.internal.PolygonDouble;
 import com.github.davidmoten.rtree.geometry.internal.RectangleDouble;
 import com.github.davidmoten.rtree.geometry.internal.RectangleFloat;
 
@@ -74,6 +79,91 @@ public final class Geometries {
         return LineFloat.create(x1, y1, x2, y2);
     }
 
+    /**
+     * Returns a ray from the origin (x, y) in the direction (dx, dy).
+     * 
+     * @param x
+     *            x coordinate of the origin
+     * @param y
+     *            y coordinate of the origin
+     * @param dx
+     *            x component of the direction
+     * @param dy
+     *            y component of the direction
+     * @return ray
+     */
+    public static Ray ray(double x, double y, double dx, double dy) {
+        return new Ray(x, y, dx, dy);
+    }
+
+    /**
+     * Returns a line string (polyline) with vertices given as alternating x and y
+     * coordinates, for example <code>lineString(0, 0, 10, 0, 10, 10)</code>.
+     * 
+     * @param xy
+     *            x1, y1, x2, y2, ... of the vertices in order
+     * @return line string
+     */
+    public static LineString lineString(double... xy) {
+        return LineStringDouble.create(coordinates(xy, 0), coordinates(xy, 1));
+    }
+
+    /**
+     * Returns a line string (polyline) through the given points in order.
+     * 
+     * @param points
+     *            vertices of the line string
+     * @return line string
+     */
+    public static LineString lineString(List<? extends Point> points) {
+        double[] xs = new double[points.size()];
+        double[] ys = new double[points.size()];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = points.get(i).x();
+            ys[i] = points.get(i).y();
+        }
+        return LineStringDouble.create(xs, ys);
+    }
+
+    /**
+     * Returns a polygon with vertices given as alternating x and y coordinates,
+     * for example <code>polygon(0, 0, 10, 0, 10, 10)</code>.
+     * 
+     * @param xy
+     *            x1, y1, x2, y2, ... of the vertices in order
+     * @return polygon
+     */
+    public static Polygon polygon(double... xy) {
+        return PolygonDouble.create(coordinates(xy, 0), coordinates(xy, 1));
+    }
+
+    /**
+     * Returns a polygon with the given vertices in order.
+     * 
+     * @param points
+     *            vertices of the polygon
+     * @return polygon
+     */
+    public static Polygon polygon(List<? extends Point> points) {
+        double[] xs = new double[points.size()];
+        double[] ys = new double[points.size()];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = points.get(i).x();
+            ys[i] = points.get(i).y();
+        }
+        return PolygonDouble.create(xs, ys);
+    }
+
+    // returns every second value of xy starting at offset
+    private static double[] coordinates(double[] xy, int offset) {
+        Preconditions.checkArgument(xy.length % 2 == 0, "coordinates must be pairs of x and y");
+        double[] a = new double[xy.length / 2];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = xy[2 * i + offset];
+        }
+        return a;
+    }
+
     @VisibleForTesting
     static double normalizeLongitude(double d) {
         return normalizeLongitude((float) d);
@@ -136,6 +136,23 @@ public final class Intersects {
         }
     };
 
+    public static final Func2<Geometry, Polygon, Boolean> geometryIntersectsPolygon = new Func2<Geometry, Polygon, Boolean>() {
+
+        @Override
+        public Boolean call(Geometry geometry, Polygon polygon) {
+            if (geometry instanceof Point)
+                return polygon.intersects((Point) geometry);
+            else if (geometry instanceof Rectangle)
+                return polygon.intersects((Rectangle) geometry);
+            else if (geometry instanceof Line)
+                return polygon.intersects((Line) geometry);
+            else if (geometry instanceof Circle)
+                return polygon.intersects((Circle) geometry);
+            else
+                throw new RuntimeException("unrecognized geometry: " + geometry);
+        }
+    };
+
     public static final Func2<Geometry, Rectangle, Boolean> geometryIntersectsRectangle = new Func2<Geometry, Rectangle, Boolean>() {
 
         @Override
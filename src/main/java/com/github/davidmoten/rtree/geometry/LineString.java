@@ -0,0 +1,34 @@
+package com.github.davidmoten.rtree.geometry;
+
+/**
+ * A polyline: connected line segments joining consecutive vertices, for
+ * example a route.
+ */
+public interface LineString extends Geometry {
+
+    /**
+     * Returns the number of vertices.
+     * 
+     * @return number of vertices
+     */
+    int size();
+
+    /**
+     * Returns the x coordinate of the vertex at the given index.
+     * 
+     * @param index
+     *            vertex index from 0 to size() - 1
+     * @return x coordinate of the vertex
+     */
+    double x(int index);
+
+    /**
+     * Returns the y coordinate of the vertex at the given index.
+     * 
+     * @param index
+     *            vertex index from 0 to size() - 1
+     * @return y coordinate of the vertex
+     */
+    double y(int index);
+
+}
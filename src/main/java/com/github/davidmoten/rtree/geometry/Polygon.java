@@ -0,0 +1,64 @@
+package com.github.davidmoten.rtree.geometry;
+
+/**
+ * A simple polygon (no holes) given by its vertices in order. The last vertex
+ * is joined to the first. The polygon includes its boundary and the interior is
+ * determined by the even-odd rule.
+ */
+public interface Polygon extends Geometry {
+
+    /**
+     * Returns the number of vertices.
+     * 
+     * @return number of vertices
+     */
+    int size();
+
+    /**
+     * Returns the x coordinate of the vertex at the given index.
+     * 
+     * @param index
+     *            vertex index from 0 to size() - 1
+     * @return x coordinate of the vertex
+     */
+    double x(int index);
+
+    /**
+     * Returns the y coordinate of the vertex at the given index.
+     * 
+     * @param index
+     *            vertex index from 0 to size() - 1
+     * @return y coordinate of the vertex
+     */
+    double y(int index);
+
+    /**
+     * Returns true if and only if the point (x, y) is inside the polygon or on
+     * its boundary.
+     * 
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @return true if the polygon contains the point
+     */
+    boolean contains(double x, double y);
+
+    /**
+     * Returns true only if every point of the rectangle is inside the polygon.
+     * May return false for a rectangle that touches the boundary of the polygon
+     * from inside.
+     * 
+     * @param r
+     *            rectangle to test
+     * @return true if the rectangle is inside the polygon
+     */
+    boolean contains(Rectangle r);
+
+    boolean intersects(Point point);
+
+    boolean intersects(Line line);
+
+    boolean intersects(Circle circle);
+
+}
@@ -0,0 +1,192 @@
+package com.github.davidmoten.rtree.geometry;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.geometry.internal.GeometryUtil;
+
+/**
+ * A half-line from an origin in a direction, used to find the geometries a ray
+ * hits in order (see
+ * {@link com.github.davidmoten.rtree.RTree#search(Ray)}). Positions along the
+ * ray are given by the distance t from the origin.
+ */
+public final class Ray {
+
+    private final double x;
+    private final double y;
+    private final double dx;
+    private final double dy;
+
+    Ray(double x, double y, double dx, double dy) {
+        double length = Math.sqrt(dx * dx + dy * dy);
+        Preconditions.checkArgument(length > 0, "direction cannot be zero");
+        this.x = x;
+        this.y = y;
+        // normalize so that t is distance from the origin
+        this.dx = dx / length;
+        this.dy = dy / length;
+    }
+
+    public double x() {
+        return x;
+    }
+
+    public double y() {
+        return y;
+    }
+
+    /**
+     * Returns the x component of the unit direction vector.
+     * 
+     * @return x component of the direction
+     */
+    public double dx() {
+        return dx;
+    }
+
+    /**
+     * Returns the y component of the unit direction vector.
+     * 
+     * @return y component of the direction
+     */
+    public double dy() {
+        return dy;
+    }
+
+    /**
+     * Returns the distance along the ray at which it first meets the rectangle
+     * (0 if the origin is inside it) or {@link Double#POSITIVE_INFINITY} if the
+     * ray misses it. This is a lower bound for the hit distance of anything
+     * inside the rectangle.
+     * 
+     * @param r
+     *            rectangle
+     * @return distance to the first hit
+     */
+    public double hit(Rectangle r) {
+        return hit(r.x1(), r.y1(), r.x2(), r.y2());
+    }
+
+    /**
+     * Returns the distance along the ray at which it first meets the geometry or
+     * {@link Double#POSITIVE_INFINITY} if the ray misses it. Points, rectangles,
+     * circles, lines, polygons and line strings are tested exactly and other
+     * geometries by their minimum bounding rectangle.
+     * 
+     * @param g
+     *            geometry
+     * @return distance to the first hit
+     */
+    public double hit(Geometry g) {
+        if (g instanceof Rectangle) {
+            return hit((Rectangle) g);
+        } else if (g instanceof Circle) {
+            return hit((Circle) g);
+        } else if (g instanceof Line) {
+            Line line = (Line) g;
+            return hitSegment(line.x1(), line.y1(), line.x2(), line.y2());
+        } else if (g instanceof Polygon) {
+            return hit((Polygon) g);
+        } else if (g instanceof LineString) {
+            return hit((LineString) g);
+        } else {
+            return hit(g.mbr());
+        }
+    }
+
+    // slab method
+    private double hit(double x1, double y1, double x2, double y2) {
+        double tMin = 0;
+        double tMax = Double.POSITIVE_INFINITY;
+        if (dx == 0) {
+            if (x < x1 || x > x2) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else {
+            double a = (x1 - x) / dx;
+            double b = (x2 - x) / dx;
+            tMin = GeometryUtil.max(tMin, Math.min(a, b));
+            tMax = GeometryUtil.min(tMax, Math.max(a, b));
+        }
+        if (dy == 0) {
+            if (y < y1 || y > y2) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else {
+            double a = (y1 - y) / dy;
+            double b = (y2 - y) / dy;
+            tMin = GeometryUtil.max(tMin, Math.min(a, b));
+            tMax = GeometryUtil.min(tMax, Math.max(a, b));
+        }
+        return tMin <= tMax ? tMin : Double.POSITIVE_INFINITY;
+    }
+
+    private double hit(Circle c) {
+        double ox = x - c.x();
+        double oy = y - c.y();
+        double s = ox * ox + oy * oy - c.radius() * c.radius();
+        if (s <= 0) {
+            // origin inside the circle
+            return 0;
+        }
+        // solve |o + t d|^2 = r^2 with |d| = 1
+        double b = ox * dx + oy * dy;
+        double discriminant = b * b - s;
+        if (discriminant < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double t = -b - Math.sqrt(discriminant);
+        // s > 0 so both roots have the same sign
+        return t >= 0 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    private double hitSegment(double x1, double y1, double x2, double y2) {
+        double ex = x2 - x1;
+        double ey = y2 - y1;
+        double wx = x1 - x;
+        double wy = y1 - y;
+        double denominator = dx * ey - dy * ex;
+        if (denominator == 0) {
+            // parallel, only a hit if collinear
+            if (wx * dy - wy * dx != 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double t1 = wx * dx + wy * dy;
+            double t2 = (x2 - x) * dx + (y2 - y) * dy;
+            if (Math.max(t1, t2) < 0) {
+                return Double.POSITIVE_INFINITY;
+            } else {
+                return Math.max(0, Math.min(t1, t2));
+            }
+        }
+        double t = (wx * ey - wy * ex) / denominator;
+        double u = (wx * dy - wy * dx) / denominator;
+        return t >= 0 && u >= 0 && u <= 1 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    private double hit(Polygon polygon) {
+        if (polygon.contains(x, y)) {
+            return 0;
+        }
+        double t = Double.POSITIVE_INFINITY;
+        for (int i = 0, j = polygon.size() - 1; i < polygon.size(); j = i++) {
+            t = Math.min(t,
+                    hitSegment(polygon.x(j), polygon.y(j), polygon.x(i), polygon.y(i)));
+        }
+        return t;
+    }
+
+    private double hit(LineString lineString) {
+        double t = Double.POSITIVE_INFINITY;
+        for (int i = 1; i < lineString.size(); i++) {
+            t = Math.min(t, hitSegment(lineString.x(i - 1), lineString.y(i - 1),
+                    lineString.x(i), lineString.y(i)));
+        }
+        return t;
+    }
+
+    @Override
+    public String toString() {
+        return "Ray [x=" + x + ", y=" + y + ", dx=" + dx + ", dy=" + dy + "]";
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.github.davidmoten.rtree.geometry.internal;
+
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+/**
+ * Great-circle distances on a spherical earth for geometries whose x
+ * coordinate is longitude and y coordinate is latitude in degrees (see
+ * {@link com.github.davidmoten.rtree.geometry.Geometries#pointGeographic}).
+ * Longitudes are compared modulo 360 so distances are correct across the
+ * antimeridian, and a rectangle touching a pole is treated as touching every
+ * meridian there.
+ */
+public final class GeographicUtil {
+
+    /**
+     * Mean radius of the earth in metres.
+     */
+    public static final double EARTH_RADIUS_METRES = 6371008.8;
+
+    private GeographicUtil() {
+        // prevent instantiation
+    }
+
+    /**
+     * Returns the great-circle distance in metres between two lon/lat
+     * positions using the haversine formula.
+     */
+    public static double distanceMetres(double lon1, double lat1, double lon2, double lat2) {
+        return EARTH_RADIUS_METRES * centralAngle(lon1, lat1, lon2, lat2);
+    }
+
+    /**
+     * Returns the least great-circle distance in metres from the position (lon,
+     * lat) to any position in the lon/lat rectangle (x1, y1, x2, y2). The
+     * rectangle may extend beyond 180 degrees of longitude (as produced by
+     * {@link com.github.davidmoten.rtree.geometry.Geometries#rectangleGeographic}).
+     */
+    public static double distanceMetres(double lon, double lat, double x1, double y1, double x2,
+            double y2) {
+        return EARTH_RADIUS_METRES * centralAngle(lon, lat, x1, y1, x2, y2);
+    }
+
+    /**
+     * Returns the great-circle distance in metres from the position (lon, lat)
+     * to a point geometry, or to the minimum bounding rectangle of any other
+     * geometry.
+     */
+    public static double distanceMetres(double lon, double lat, Geometry g) {
+        if (g instanceof Point) {
+            Point p = (Point) g;
+            return distanceMetres(lon, lat, p.x(), p.y());
+        } else {
+            Rectangle r = g.mbr();
+            return distanceMetres(lon, lat, r.x1(), r.y1(), r.x2(), r.y2());
+        }
+    }
+
+    private static double centralAngle(double lon1, double lat1, double lon2, double lat2) {
+        double sinHalfDLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        double sinHalfDLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double h = sinHalfDLat * sinHalfDLat + Math.cos(Math.toRadians(lat1))
+                * Math.cos(Math.toRadians(lat2)) * sinHalfDLon * sinHalfDLon;
+        return 2 * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    private static double centralAngle(double lon, double lat, double x1, double y1, double x2,
+            double y2) {
+        if (x2 - x1 >= 360 || positiveModulo(lon - x1) <= x2 - x1) {
+            // the nearest point of the rectangle is on the same meridian
+            if (lat < y1) {
+                return Math.toRadians(y1 - lat);
+            } else if (lat > y2) {
+                return Math.toRadians(lat - y2);
+            } else {
+                return 0;
+            }
+        }
+        // The nearest point is on the edge meridian with the smaller difference
+        // in longitude, because along a parallel the distance grows with the
+        // difference in longitude.
+        double d1 = Math.abs(signedModulo(lon - x1));
+        double d2 = Math.abs(signedModulo(lon - x2));
+        double m = d1 <= d2 ? x1 : x2;
+        double dLon = Math.toRadians(Math.min(d1, d2));
+        if (dLon < Math.PI / 2) {
+            // latitude of the closest point on the whole meridian
+            double latRadians = Math.toRadians(lat);
+            double closestLat = Math.toDegrees(Math.atan(Math.tan(latRadians) / Math.cos(dLon)));
+            if (closestLat >= y1 && closestLat <= y2) {
+                // cross-track distance to the meridian
+                return Math.asin(Math.sin(dLon) * Math.cos(latRadians));
+            }
+        }
+        // distance along the edge is unimodal so the nearest point is a corner
+        return Math.min(centralAngle(lon, lat, m, y1), centralAngle(lon, lat, m, y2));
+    }
+
+    // returns d modulo 360 in [0, 360)
+    private static double positiveModulo(double d) {
+        return d - 360 * Math.floor(d / 360);
+    }
+
+    // returns d modulo 360 in [-180, 180)
+    private static double signedModulo(double d) {
+        return positiveModulo(d + 180) - 180;
+    }
+
+}
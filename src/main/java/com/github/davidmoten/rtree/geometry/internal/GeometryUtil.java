@@ -2,6 +2,8 @@ package com.github.davidmoten.rtree.geometry.internal;
 
 import com.github.davidmoten.rtree.geometry.Circle;
 import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.Line2D;
+import com.github.davidmoten.rtree.internal.RectangleUtil;
 
 public final class GeometryUtil {
 
@@ -77,6 +79,56 @@ public final class GeometryUtil {
         return x1 <= a2 && a1 <= x2 && y1 <= b2 && b1 <= y2;
     }
     
+    /**
+     * Returns true if and only if the rectangle (x1, y1, x2, y2) contains the
+     * rectangle (a1, b1, a2, b2) (boundaries included).
+     */
+    public static boolean contains(double x1, double y1, double x2, double y2, double a1,
+            double b1, double a2, double b2) {
+        return x1 <= a1 && a2 <= x2 && y1 <= b1 && b2 <= y2;
+    }
+
+    /**
+     * Returns the greatest distance from the rectangle r of any point in the
+     * rectangle (a1, b1, a2, b2).
+     */
+    public static double maxDistance(Rectangle r, double a1, double b1, double a2, double b2) {
+        double dx = max(0, max(r.x1() - a1, a2 - r.x2()));
+        double dy = max(0, max(r.y1() - b1, b2 - r.y2()));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Returns the distance between the line segment (x1, y1, x2, y2) and the
+     * rectangle (a1, b1, a2, b2). When they do not intersect the closest points
+     * include an end point of the segment or a corner of the rectangle.
+     */
+    public static double lineDistance(double x1, double y1, double x2, double y2, double a1,
+            double b1, double a2, double b2) {
+        if (RectangleUtil.rectangleIntersectsLine(a1, b1, a2 - a1, b2 - b1, x1, y1, x2, y2)) {
+            return 0;
+        }
+        double d = min(distance(x1, y1, a1, b1, a2, b2), distance(x2, y2, a1, b1, a2, b2));
+        d = min(d, Line2D.ptSegDist(x1, y1, x2, y2, a1, b1));
+        d = min(d, Line2D.ptSegDist(x1, y1, x2, y2, a1, b2));
+        d = min(d, Line2D.ptSegDist(x1, y1, x2, y2, a2, b1));
+        return min(d, Line2D.ptSegDist(x1, y1, x2, y2, a2, b2));
+    }
+
+    /**
+     * Returns the greatest distance from the line segment (x1, y1, x2, y2) of any
+     * point in the rectangle (a1, b1, a2, b2). Distance to a segment is convex so
+     * the greatest distance is at a corner.
+     */
+    public static double lineMaxDistance(double x1, double y1, double x2, double y2, double a1,
+            double b1, double a2, double b2) {
+        double d = max(Line2D.ptSegDistSq(x1, y1, x2, y2, a1, b1),
+                Line2D.ptSegDistSq(x1, y1, x2, y2, a1, b2));
+        d = max(d, Line2D.ptSegDistSq(x1, y1, x2, y2, a2, b1));
+        d = max(d, Line2D.ptSegDistSq(x1, y1, x2, y2, a2, b2));
+        return Math.sqrt(d);
+    }
+
     public static boolean lineIntersects(double x1, double y1, double x2, double y2, Circle circle) {
 
         // using Vector Projection
@@ -0,0 +1,62 @@
+package com.github.davidmoten.rtree.geometry.internal;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.geometry.LineString;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.RectangleUtil;
+
+public final class LineStringDouble extends Vertices implements LineString {
+
+    private LineStringDouble(double[] xs, double[] ys) {
+        super(xs, ys);
+    }
+
+    /**
+     * Returns a line string with the given vertices.
+     * 
+     * @param xs
+     *            x coordinates of the vertices (copied)
+     * @param ys
+     *            y coordinates of the vertices (copied)
+     * @return line string
+     */
+    public static LineStringDouble create(double[] xs, double[] ys) {
+        Preconditions.checkArgument(xs.length >= 2, "a line string must have at least 2 vertices");
+        return new LineStringDouble(xs.clone(), ys.clone());
+    }
+
+    @Override
+    public double distance(Rectangle r) {
+        double d = Double.POSITIVE_INFINITY;
+        for (int i = 1; i < xs.length && d > 0; i++) {
+            d = Math.min(d, GeometryUtil.lineDistance(xs[i - 1], ys[i - 1], xs[i], ys[i], r.x1(),
+                    r.y1(), r.x2(), r.y2()));
+        }
+        return d;
+    }
+
+    @Override
+    public boolean intersects(Rectangle r) {
+        if (!mbr.intersects(r)) {
+            return false;
+        }
+        for (int i = 1; i < xs.length; i++) {
+            if (RectangleUtil.rectangleIntersectsLine(r.x1(), r.y1(), r.x2() - r.x1(),
+                    r.y2() - r.y1(), xs[i - 1], ys[i - 1], xs[i], ys[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isDoublePrecision() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return toString("LineString");
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.github.davidmoten.rtree.geometry.internal;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.geometry.Circle;
+import com.github.davidmoten.rtree.geometry.Line;
+import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Polygon;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.Line2D;
+import com.github.davidmoten.rtree.internal.RectangleUtil;
+
+public final class PolygonDouble extends Vertices implements Polygon {
+
+    private PolygonDouble(double[] xs, double[] ys) {
+        super(xs, ys);
+    }
+
+    /**
+     * Returns a polygon with the given vertices.
+     * 
+     * @param xs
+     *            x coordinates of the vertices (copied)
+     * @param ys
+     *            y coordinates of the vertices (copied)
+     * @return polygon
+     */
+    public static PolygonDouble create(double[] xs, double[] ys) {
+        Preconditions.checkArgument(xs.length >= 3, "a polygon must have at least 3 vertices");
+        return new PolygonDouble(xs.clone(), ys.clone());
+    }
+
+    @Override
+    public boolean contains(double x, double y) {
+        if (!mbr.contains(x, y)) {
+            return false;
+        }
+        boolean inside = false;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            double xi = xs[i];
+            double yi = ys[i];
+            double xj = xs[j];
+            double yj = ys[j];
+            if (onSegment(x, y, xi, yi, xj, yj)) {
+                return true;
+            }
+            // even-odd rule, count crossings of a ray to the right of (x, y)
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private static boolean onSegment(double x, double y, double x1, double y1, double x2,
+            double y2) {
+        return (x2 - x1) * (y - y1) == (y2 - y1) * (x - x1) && Math.min(x1, x2) <= x
+                && x <= Math.max(x1, x2) && Math.min(y1, y2) <= y && y <= Math.max(y1, y2);
+    }
+
+    @Override
+    public boolean contains(Rectangle r) {
+        // if one corner is inside and no edge touches the rectangle then the
+        // whole rectangle is inside
+        return GeometryUtil.contains(mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2(), r.x1(), r.y1(),
+                r.x2(), r.y2()) && contains(r.x1(), r.y1()) && !edgeIntersects(r);
+    }
+
+    @Override
+    public boolean intersects(Rectangle r) {
+        // either the polygon contains the rectangle (so contains a corner), or an
+        // edge meets the rectangle (which includes the polygon being inside the
+        // rectangle)
+        return mbr.intersects(r) && (contains(r.x1(), r.y1()) || edgeIntersects(r));
+    }
+
+    private boolean edgeIntersects(Rectangle r) {
+        double w = r.x2() - r.x1();
+        double h = r.y2() - r.y1();
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            if (RectangleUtil.rectangleIntersectsLine(r.x1(), r.y1(), w, h, xs[j], ys[j], xs[i],
+                    ys[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean intersects(Point point) {
+        return contains(point.x(), point.y());
+    }
+
+    @Override
+    public boolean intersects(Line line) {
+        if (!mbr.intersects(line.mbr())) {
+            return false;
+        } else if (contains(line.x1(), line.y1())) {
+            return true;
+        }
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            if (Line2D.linesIntersect(xs[j], ys[j], xs[i], ys[i], line.x1(), line.y1(), line.x2(),
+                    line.y2())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean intersects(Circle circle) {
+        if (!mbr.intersects(circle.mbr())) {
+            return false;
+        } else if (contains(circle.x(), circle.y())) {
+            return true;
+        }
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            if (Line2D.ptSegDist(xs[j], ys[j], xs[i], ys[i], circle.x(),
+                    circle.y()) <= circle.radius()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public double distance(Rectangle r) {
+        if (intersects(r)) {
+            return 0;
+        }
+        double d = Double.POSITIVE_INFINITY;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            d = Math.min(d, LineDouble.create(xs[j], ys[j], xs[i], ys[i]).distance(r));
+        }
+        return d;
+    }
+
+    @Override
+    public boolean isDoublePrecision() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return toString("Polygon");
+    }
+
+}
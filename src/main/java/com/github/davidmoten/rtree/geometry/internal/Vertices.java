@@ -0,0 +1,80 @@
+package com.github.davidmoten.rtree.geometry.internal;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.internal.util.ObjectsHelper;
+
+/**
+ * Vertex array handling shared by {@link PolygonDouble} and
+ * {@link LineStringDouble}: the coordinate arrays, their mbr, accessors and
+ * value equality. Instances of different subclasses are never equal.
+ */
+abstract class Vertices {
+
+    final double[] xs;
+    final double[] ys;
+    final Rectangle mbr;
+
+    Vertices(double[] xs, double[] ys) {
+        Preconditions.checkArgument(xs.length == ys.length,
+                "xs and ys must have the same length");
+        this.xs = xs;
+        this.ys = ys;
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        this.mbr = RectangleDouble.create(minX, minY, maxX, maxY);
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    public double x(int index) {
+        return xs[index];
+    }
+
+    public double y(int index) {
+        return ys[index];
+    }
+
+    public Rectangle mbr() {
+        return mbr;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(xs) + Arrays.hashCode(ys);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        Optional<? extends Vertices> other = ObjectsHelper.asClass(obj, getClass());
+        if (other.isPresent()) {
+            return Arrays.equals(xs, other.get().xs) && Arrays.equals(ys, other.get().ys);
+        } else
+            return false;
+    }
+
+    String toString(String name) {
+        StringBuilder s = new StringBuilder(name).append(" [");
+        for (int i = 0; i < xs.length; i++) {
+            if (i > 0) {
+                s.append(", ");
+            }
+            s.append("(").append(xs[i]).append(", ").append(ys[i]).append(")");
+        }
+        return s.append("]").toString();
+    }
+
+}
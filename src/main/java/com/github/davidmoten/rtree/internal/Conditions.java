@@ -0,0 +1,429 @@
+package com.github.davidmoten.rtree.internal;
+
+import static com.github.davidmoten.rtree.geometry.Intersects.geometryIntersectsCircle;
+import static com.github.davidmoten.rtree.geometry.Intersects.geometryIntersectsLine;
+import static com.github.davidmoten.rtree.geometry.Intersects.geometryIntersectsPolygon;
+
+import com.github.davidmoten.rtree.CoveringCondition;
+import com.github.davidmoten.rtree.PruningCondition;
+import com.github.davidmoten.rtree.geometry.Circle;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Line;
+import com.github.davidmoten.rtree.geometry.LineString;
+import com.github.davidmoten.rtree.geometry.Polygon;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.geometry.internal.GeometryUtil;
+import com.github.davidmoten.rtree.geometry.internal.PointDouble;
+import com.github.davidmoten.rtree.geometry.internal.PointFloat;
+import com.github.davidmoten.rtree.geometry.internal.RectangleDouble;
+import com.github.davidmoten.rtree.geometry.internal.RectangleFloat;
+
+import rx.functions.Func1;
+
+public final class Conditions {
+
+    private Conditions() {
+        // prevent instantiation
+    }
+
+    /**
+     * Returns true if and only if the condition is a {@link CoveringCondition}
+     * that covers the rectangle r.
+     * 
+     * @param condition
+     *            search condition
+     * @param r
+     *            minimum bounding rectangle of a node
+     * @return true if the condition is known to hold for everything within r
+     */
+    public static boolean covers(Func1<? super Geometry, Boolean> condition, Rectangle r) {
+        return condition instanceof CoveringCondition && ((CoveringCondition) condition).covers(r);
+    }
+
+    /**
+     * Returns false if the search condition rules out everything within the
+     * rectangle r. This is the condition applied to r unless the condition is a
+     * {@link PruningCondition} with its own rule for nodes.
+     * 
+     * @param condition
+     *            search condition
+     * @param r
+     *            minimum bounding rectangle of a node
+     * @return false if the node can be skipped
+     */
+    public static boolean mayMatchWithin(Func1<? super Geometry, Boolean> condition,
+            Rectangle r) {
+        if (condition instanceof PruningCondition) {
+            return ((PruningCondition) condition).mayMatchWithin(r);
+        } else {
+            return condition.call(r);
+        }
+    }
+
+    public static CoveringCondition alwaysTrue() {
+        return AlwaysTrue.INSTANCE;
+    }
+
+    public static Intersects intersects(Rectangle r) {
+        return new Intersects(r);
+    }
+
+    public static CoveringCondition withinDistance(Rectangle r, double maxDistance) {
+        return new WithinDistance(r, maxDistance);
+    }
+
+    public static CoveringCondition within(Rectangle r) {
+        return new Within(r);
+    }
+
+    public static Func1<Geometry, Boolean> containing(Rectangle r) {
+        return new Containing(r);
+    }
+
+    public static CoveringCondition withinDistance(LineString lineString, double maxDistance) {
+        return new WithinDistanceOfLineString(lineString, maxDistance);
+    }
+
+    public static CoveringCondition intersects(Circle circle) {
+        return new IntersectsCircle(circle);
+    }
+
+    public static Func1<Geometry, Boolean> intersects(Line line) {
+        return new IntersectsLine(line);
+    }
+
+    public static CoveringCondition intersects(Polygon polygon) {
+        return new IntersectsPolygon(polygon);
+    }
+
+    private static final class AlwaysTrue implements CoveringCondition {
+
+        static final AlwaysTrue INSTANCE = new AlwaysTrue();
+
+        @Override
+        public Boolean call(Geometry g) {
+            return true;
+        }
+
+        @Override
+        public boolean covers(Rectangle r) {
+            return true;
+        }
+    }
+
+    /**
+     * Rectangle intersection condition. The query bounds are held as primitives
+     * and the common geometry classes are tested by concrete type so that
+     * searches can call {@link #intersects(Geometry)} directly (no boxing and no
+     * megamorphic calls through {@link Geometry}).
+     */
+    public static final class Intersects implements CoveringCondition {
+
+        private final Rectangle r;
+        private final double x1;
+        private final double y1;
+        private final double x2;
+        private final double y2;
+
+        Intersects(Rectangle r) {
+            this.r = r;
+            this.x1 = r.x1();
+            this.y1 = r.y1();
+            this.x2 = r.x2();
+            this.y2 = r.y2();
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            return intersects(g);
+        }
+
+        @Override
+        public boolean covers(Rectangle mbr) {
+            return contains(mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2());
+        }
+
+        /**
+         * Returns true if and only if the geometry intersects the query rectangle
+         * (the same as {@code g.intersects(r)}).
+         * 
+         * @param g
+         *            geometry to test
+         * @return true if g intersects the query rectangle
+         */
+        public boolean intersects(Geometry g) {
+            if (g instanceof PointDouble) {
+                PointDouble p = (PointDouble) g;
+                return intersects(p.x(), p.y(), p.x(), p.y());
+            } else if (g instanceof PointFloat) {
+                PointFloat p = (PointFloat) g;
+                return intersects(p.x(), p.y(), p.x(), p.y());
+            } else if (g instanceof RectangleFloat) {
+                RectangleFloat b = (RectangleFloat) g;
+                return intersects(b.x1, b.y1, b.x2, b.y2);
+            } else if (g instanceof RectangleDouble) {
+                RectangleDouble b = (RectangleDouble) g;
+                return intersects(b.x1(), b.y1(), b.x2(), b.y2());
+            } else {
+                return g.intersects(r);
+            }
+        }
+
+        public boolean intersects(double a1, double b1, double a2, double b2) {
+            return x1 <= a2 && a1 <= x2 && y1 <= b2 && b1 <= y2;
+        }
+
+        public boolean contains(double a1, double b1, double a2, double b2) {
+            return x1 <= a1 && a2 <= x2 && y1 <= b1 && b2 <= y2;
+        }
+
+        public Rectangle rectangle() {
+            return r;
+        }
+    }
+
+    private static final class WithinDistance implements CoveringCondition {
+
+        private final Rectangle r;
+        private final double maxDistance;
+
+        WithinDistance(Rectangle r, double maxDistance) {
+            this.r = r;
+            this.maxDistance = maxDistance;
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            return g.distance(r) < maxDistance;
+        }
+
+        @Override
+        public boolean covers(Rectangle mbr) {
+            return GeometryUtil.maxDistance(r, mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2()) < maxDistance;
+        }
+    }
+
+    /**
+     * Polygon intersection condition. Nodes whose minimum bounding rectangle is
+     * outside the polygon are pruned and nodes inside it are covered, so the
+     * exact test only runs on entries of nodes that cross the boundary.
+     */
+    private static final class IntersectsPolygon implements CoveringCondition {
+
+        private final Polygon polygon;
+
+        IntersectsPolygon(Polygon polygon) {
+            this.polygon = polygon;
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            return geometryIntersectsPolygon.call(g, polygon);
+        }
+
+        @Override
+        public boolean covers(Rectangle r) {
+            return polygon.contains(r);
+        }
+    }
+
+    /**
+     * Exact circle intersection condition, applied to node rectangles as well as
+     * entries so nodes that only meet the mbr of the circle are pruned.
+     */
+    private static final class IntersectsCircle implements CoveringCondition {
+
+        private final Circle circle;
+        private final double x;
+        private final double y;
+        private final double radiusSquared;
+
+        IntersectsCircle(Circle circle) {
+            this.circle = circle;
+            this.x = circle.x();
+            this.y = circle.y();
+            this.radiusSquared = circle.radius() * circle.radius();
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            return geometryIntersectsCircle.call(g, circle);
+        }
+
+        @Override
+        public boolean covers(Rectangle r) {
+            // the circle contains the rectangle if it contains the farthest corner
+            double dx = Math.max(Math.abs(x - r.x1()), Math.abs(x - r.x2()));
+            double dy = Math.max(Math.abs(y - r.y1()), Math.abs(y - r.y2()));
+            return dx * dx + dy * dy < radiusSquared;
+        }
+    }
+
+    /**
+     * Exact line segment intersection condition, applied to node rectangles as
+     * well as entries so nodes that only meet the mbr of a long diagonal line are
+     * pruned.
+     */
+    private static final class IntersectsLine implements Func1<Geometry, Boolean> {
+
+        private final Line line;
+        private final double x1;
+        private final double y1;
+        private final double x2;
+        private final double y2;
+
+        IntersectsLine(Line line) {
+            this.line = line;
+            this.x1 = Math.min(line.x1(), line.x2());
+            this.y1 = Math.min(line.y1(), line.y2());
+            this.x2 = Math.max(line.x1(), line.x2());
+            this.y2 = Math.max(line.y1(), line.y2());
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            Rectangle mbr = g.mbr();
+            // cheap rejection using the mbr of the line first
+            return GeometryUtil.intersects(x1, y1, x2, y2, mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2())
+                    && geometryIntersectsLine.call(g, line);
+        }
+    }
+
+    /**
+     * Corridor condition: the mbr of a geometry is strictly less than maxDistance
+     * from a line string. Each segment is measured separately (after a cheap test
+     * against the segment mbr padded by maxDistance) so nodes are pruned by their
+     * distance from the route rather than from its mbr.
+     */
+    private static final class WithinDistanceOfLineString implements CoveringCondition {
+
+        private final double[] xs;
+        private final double[] ys;
+        private final double maxDistance;
+
+        WithinDistanceOfLineString(LineString lineString, double maxDistance) {
+            this.xs = new double[lineString.size()];
+            this.ys = new double[lineString.size()];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = lineString.x(i);
+                ys[i] = lineString.y(i);
+            }
+            this.maxDistance = maxDistance;
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            Rectangle r = g.mbr();
+            double a1 = r.x1();
+            double b1 = r.y1();
+            double a2 = r.x2();
+            double b2 = r.y2();
+            for (int i = 1; i < xs.length; i++) {
+                double x1 = xs[i - 1];
+                double y1 = ys[i - 1];
+                double x2 = xs[i];
+                double y2 = ys[i];
+                if (GeometryUtil.intersects(Math.min(x1, x2) - maxDistance,
+                        Math.min(y1, y2) - maxDistance, Math.max(x1, x2) + maxDistance,
+                        Math.max(y1, y2) + maxDistance, a1, b1, a2, b2)
+                        && GeometryUtil.lineDistance(x1, y1, x2, y2, a1, b1, a2,
+                                b2) < maxDistance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean covers(Rectangle r) {
+            // covered if the whole rectangle is within range of a single segment
+            for (int i = 1; i < xs.length; i++) {
+                if (GeometryUtil.lineMaxDistance(xs[i - 1], ys[i - 1], xs[i], ys[i], r.x1(),
+                        r.y1(), r.x2(), r.y2()) < maxDistance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Geometries whose minimum bounding rectangle lies within the query
+     * rectangle. A node can only hold such geometries if it intersects the query
+     * so that is the pruning rule, and a node inside the query is covered.
+     */
+    private static final class Within implements CoveringCondition, PruningCondition {
+
+        private final double x1;
+        private final double y1;
+        private final double x2;
+        private final double y2;
+
+        Within(Rectangle r) {
+            this.x1 = r.x1();
+            this.y1 = r.y1();
+            this.x2 = r.x2();
+            this.y2 = r.y2();
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            Rectangle mbr = g.mbr();
+            return GeometryUtil.contains(x1, y1, x2, y2, mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2());
+        }
+
+        @Override
+        public boolean mayMatchWithin(Rectangle r) {
+            return GeometryUtil.intersects(x1, y1, x2, y2, r.x1(), r.y1(), r.x2(), r.y2());
+        }
+
+        @Override
+        public boolean covers(Rectangle r) {
+            return GeometryUtil.contains(x1, y1, x2, y2, r.x1(), r.y1(), r.x2(), r.y2());
+        }
+    }
+
+    /**
+     * Geometries that contain the query rectangle (a stabbing query when the
+     * query is a point). Rectangles and points are tested by containment,
+     * circles and polygons exactly and other geometries by their minimum bounding
+     * rectangle. Every ancestor of a matching entry contains the query too so the
+     * same test prunes nodes.
+     */
+    private static final class Containing implements Func1<Geometry, Boolean> {
+
+        private final Rectangle r;
+        private final double x1;
+        private final double y1;
+        private final double x2;
+        private final double y2;
+
+        Containing(Rectangle r) {
+            this.r = r;
+            this.x1 = r.x1();
+            this.y1 = r.y1();
+            this.x2 = r.x2();
+            this.y2 = r.y2();
+        }
+
+        @Override
+        public Boolean call(Geometry g) {
+            Rectangle mbr = g.mbr();
+            if (!GeometryUtil.contains(mbr.x1(), mbr.y1(), mbr.x2(), mbr.y2(), x1, y1, x2, y2)) {
+                return false;
+            } else if (g instanceof Circle) {
+                Circle c = (Circle) g;
+                // the circle contains the rectangle if it contains the farthest
+                // corner
+                double dx = Math.max(Math.abs(c.x() - x1), Math.abs(c.x() - x2));
+                double dy = Math.max(Math.abs(c.y() - y1), Math.abs(c.y() - y2));
+                return dx * dx + dy * dy <= c.radius() * c.radius();
+            } else if (g instanceof Polygon) {
+                return ((Polygon) g).contains(r);
+            } else {
+                return true;
+            }
+        }
+    }
+
+}
@@ -5,6 +5,7 @@ import java.util.List;
 import com.github.davidmoten.rtree.Context;
 import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Monoid;
 import com.github.davidmoten.rtree.Node;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.Rectangle;
@@ -17,11 +18,23 @@ public final class LeafDefault<T, S extends Geometry> implements Leaf<T, S> {
     private final List<Entry<T, S>> entries;
     private final Rectangle mbr;
     private final Context<T, S> context;
+    private final Object summary;
 
     public LeafDefault(List<Entry<T, S>> entries, Context<T, S> context) {
         this.entries = entries;
         this.context = context;
         this.mbr = Util.mbr(entries);
+        this.summary = context == null ? null
+                : context.monoid().map(monoid -> summary(entries, monoid)).orElse(null);
+    }
+
+    private static <T, S extends Geometry, A> A summary(List<Entry<T, S>> entries,
+            Monoid<? super T, A> monoid) {
+        A a = monoid.identity();
+        for (Entry<T, S> entry : entries) {
+            a = monoid.combine(a, monoid.summarise(entry.value()));
+        }
+        return a;
     }
 
     @Override
@@ -45,6 +58,16 @@ public final class LeafDefault<T, S extends Geometry> implements Leaf<T, S> {
         return entries.size();
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public <A> A aggregate(Monoid<? super T, A> monoid) {
+        if (context != null && context.monoid().orElse(null) == monoid) {
+            return (A) summary;
+        } else {
+            return LeafHelper.aggregate(this, monoid);
+        }
+    }
+
     @Override
     public List<Node<T, S>> add(Entry<? extends T, ? extends S> entry) {
         return LeafHelper.add(entry, this);
@@ -9,9 +9,11 @@ import java.util.Optional;
 import com.github.davidmoten.rtree.Context;
 import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Monoid;
 import com.github.davidmoten.rtree.Node;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.ListPair;
+import com.github.davidmoten.rtree.geometry.Rectangle;
 
 import rx.Subscriber;
 import rx.functions.Func1;
@@ -48,6 +50,25 @@ public final class LeafHelper {
         }
     }
 
+    /**
+     * Returns the summary of the entry values in the given leaf.
+     * 
+     * @param leaf
+     *            leaf node
+     * @param monoid
+     *            summarises entry values
+     * @return summary of the entry values in leaf
+     */
+    public static <T, S extends Geometry, A> A aggregate(Leaf<T, S> leaf,
+            Monoid<? super T, A> monoid) {
+        int numEntries = leaf.count();
+        A a = monoid.identity();
+        for (int i = 0; i < numEntries; i++) {
+            a = monoid.combine(a, monoid.summarise(leaf.entry(i).value()));
+        }
+        return a;
+    }
+
     public static <T, S extends Geometry> List<Node<T, S>> add(
             Entry<? extends T, ? extends S> entry, Leaf<T, S> leaf) {
         List<Entry<T, S>> entries = leaf.entries();
@@ -74,7 +95,15 @@ public final class LeafHelper {
     public static <T, S extends Geometry> void search(Func1<? super Geometry, Boolean> condition,
             Subscriber<? super Entry<T, S>> subscriber, Leaf<T, S> leaf) {
 
-        if (!condition.call(leaf.geometry().mbr())) {
+        if (condition instanceof Conditions.Intersects) {
+            search((Conditions.Intersects) condition, subscriber, leaf);
+            return;
+        }
+        Rectangle mbr = leaf.geometry().mbr();
+        if (Conditions.covers(condition, mbr)) {
+            searchAll(subscriber, leaf);
+            return;
+        } else if (!Conditions.mayMatchWithin(condition, mbr)) {
             return;
         }
 
@@ -90,4 +119,46 @@ public final class LeafHelper {
         }
     }
 
+    private static <T, S extends Geometry> void search(Conditions.Intersects condition,
+            Subscriber<? super Entry<T, S>> subscriber, Leaf<T, S> leaf) {
+        // rectangle search kernel: the same as the general search but without
+        // boxing or megamorphic calls on the condition
+        Rectangle mbr = leaf.geometry().mbr();
+        if (!condition.intersects(mbr)) {
+            return;
+        } else if (condition.covers(mbr)) {
+            searchAll(subscriber, leaf);
+            return;
+        }
+        int numEntries = leaf.count();
+        for (int i = 0; i < numEntries; i++) {
+            Entry<T, S> entry = leaf.entry(i);
+            if (subscriber.isUnsubscribed()) {
+                return;
+            } else if (condition.intersects(entry.geometry())) {
+                subscriber.onNext(entry);
+            }
+        }
+    }
+
+    /**
+     * Reports every entry of the leaf to the subscriber without testing the
+     * entry geometries.
+     * 
+     * @param subscriber
+     *            the subscriber to report entries to
+     * @param leaf
+     *            leaf node
+     */
+    public static <T, S extends Geometry> void searchAll(Subscriber<? super Entry<T, S>> subscriber,
+            Leaf<T, S> leaf) {
+        int numEntries = leaf.count();
+        for (int i = 0; i < numEntries; i++) {
+            if (subscriber.isUnsubscribed()) {
+                return;
+            }
+            subscriber.onNext(leaf.entry(i));
+        }
+    }
+
 }
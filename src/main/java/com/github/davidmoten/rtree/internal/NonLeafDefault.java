@@ -5,6 +5,7 @@ import java.util.List;
 import com.github.davidmoten.guavamini.Preconditions;
 import com.github.davidmoten.rtree.Context;
 import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Monoid;
 import com.github.davidmoten.rtree.Node;
 import com.github.davidmoten.rtree.NonLeaf;
 import com.github.davidmoten.rtree.geometry.Geometry;
@@ -18,12 +19,36 @@ public final class NonLeafDefault<T, S extends Geometry> implements NonLeaf<T, S
     private final List<? extends Node<T, S>> children;
     private final Rectangle mbr;
     private final Context<T, S> context;
+    private final int entryCount;
+    private final Object summary;
 
     public NonLeafDefault(List<? extends Node<T, S>> children, Context<T, S> context) {
         Preconditions.checkArgument(!children.isEmpty());
         this.context = context;
         this.children = children;
         this.mbr = Util.mbr(children);
+        // nodes are immutable and are rebuilt along the path of every add, delete
+        // and bulk load so the count is always current
+        this.entryCount = entryCount(children);
+        this.summary = context == null ? null
+                : context.monoid().map(monoid -> summary(children, monoid)).orElse(null);
+    }
+
+    private static <T, S extends Geometry> int entryCount(List<? extends Node<T, S>> children) {
+        int count = 0;
+        for (Node<T, S> child : children) {
+            count += NonLeafHelper.entryCount(child);
+        }
+        return count;
+    }
+
+    private static <T, S extends Geometry, A> A summary(List<? extends Node<T, S>> children,
+            Monoid<? super T, A> monoid) {
+        A a = monoid.identity();
+        for (Node<T, S> child : children) {
+            a = monoid.combine(a, NonLeafHelper.aggregate(child, monoid));
+        }
+        return a;
     }
 
     @Override
@@ -42,6 +67,21 @@ public final class NonLeafDefault<T, S extends Geometry> implements NonLeaf<T, S
         return children.size();
     }
 
+    @Override
+    public int entryCount() {
+        return entryCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <A> A aggregate(Monoid<? super T, A> monoid) {
+        if (context != null && context.monoid().orElse(null) == monoid) {
+            return (A) summary;
+        } else {
+            return NonLeafHelper.aggregate(this, monoid);
+        }
+    }
+
     @Override
     public List<Node<T, S>> add(Entry<? extends T, ? extends S> entry) {
         return NonLeafHelper.add(entry, this);
@@ -7,10 +7,13 @@ import java.util.Optional;
 
 import com.github.davidmoten.rtree.Context;
 import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.Leaf;
+import com.github.davidmoten.rtree.Monoid;
 import com.github.davidmoten.rtree.Node;
 import com.github.davidmoten.rtree.NonLeaf;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.ListPair;
+import com.github.davidmoten.rtree.geometry.Rectangle;
 
 import rx.Subscriber;
 import rx.functions.Func1;
@@ -25,7 +28,20 @@ public final class NonLeafHelper {
 
     public static <T, S extends Geometry> void search(Func1<? super Geometry, Boolean> criterion,
             Subscriber<? super Entry<T, S>> subscriber, NonLeaf<T, S> node) {
-        if (!criterion.call(node.geometry().mbr()))
+        Rectangle mbr = node.geometry().mbr();
+        if (criterion instanceof Conditions.Intersects) {
+            // rectangle search kernel, avoids boxing and megamorphic calls
+            Conditions.Intersects intersects = (Conditions.Intersects) criterion;
+            if (!intersects.intersects(mbr)) {
+                return;
+            } else if (intersects.covers(mbr)) {
+                searchAll(subscriber, node);
+                return;
+            }
+        } else if (Conditions.covers(criterion, mbr)) {
+            searchAll(subscriber, node);
+            return;
+        } else if (!Conditions.mayMatchWithin(criterion, mbr))
             return;
 
         int numChildren = node.count();
@@ -39,6 +55,102 @@ public final class NonLeafHelper {
         }
     }
 
+    /**
+     * Reports every entry below the given node to the subscriber without testing
+     * any geometries. Used when the search condition covers the node.
+     * 
+     * @param subscriber
+     *            the subscriber to report entries to
+     * @param node
+     *            leaf or non-leaf node
+     */
+    public static <T, S extends Geometry> void searchAll(Subscriber<? super Entry<T, S>> subscriber,
+            Node<T, S> node) {
+        if (node instanceof Leaf) {
+            LeafHelper.searchAll(subscriber, (Leaf<T, S>) node);
+        } else {
+            NonLeaf<T, S> nonLeaf = (NonLeaf<T, S>) node;
+            int numChildren = nonLeaf.count();
+            for (int i = 0; i < numChildren; i++) {
+                if (subscriber.isUnsubscribed()) {
+                    return;
+                }
+                searchAll(subscriber, nonLeaf.child(i));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries in the leaves below the given node, using the
+     * cached counts of non-leaf children.
+     * 
+     * @param node
+     *            node to count entries below
+     * @return number of entries below node
+     */
+    public static <T, S extends Geometry> int entryCount(NonLeaf<T, S> node) {
+        int numChildren = node.count();
+        int count = 0;
+        for (int i = 0; i < numChildren; i++) {
+            count += entryCount(node.child(i));
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of entries in the subtree rooted at the given node.
+     * 
+     * @param node
+     *            leaf or non-leaf node
+     * @return number of entries in the subtree rooted at node
+     */
+    public static <T, S extends Geometry> int entryCount(Node<T, S> node) {
+        if (node instanceof NonLeaf) {
+            return ((NonLeaf<T, S>) node).entryCount();
+        } else {
+            return node.count();
+        }
+    }
+
+    /**
+     * Returns the summary of the entry values below the given non-leaf node
+     * combining the (possibly cached) summaries of its children.
+     * 
+     * @param node
+     *            non-leaf node
+     * @param monoid
+     *            summarises entry values
+     * @return summary of the entry values below node
+     */
+    public static <T, S extends Geometry, A> A aggregate(NonLeaf<T, S> node,
+            Monoid<? super T, A> monoid) {
+        int numChildren = node.count();
+        A a = monoid.identity();
+        for (int i = 0; i < numChildren; i++) {
+            a = monoid.combine(a, aggregate(node.child(i), monoid));
+        }
+        return a;
+    }
+
+    /**
+     * Returns the summary of the entry values in the subtree rooted at the given
+     * node.
+     * 
+     * @param node
+     *            leaf or non-leaf node
+     * @param monoid
+     *            summarises entry values
+     * @return summary of the entry values in the subtree rooted at node
+     */
+    public static <T, S extends Geometry, A> A aggregate(Node<T, S> node,
+            Monoid<? super T, A> monoid) {
+        if (node instanceof NonLeaf) {
+            return ((NonLeaf<T, S>) node).aggregate(monoid);
+        } else {
+            return ((Leaf<T, S>) node).aggregate(monoid);
+        }
+    }
+
     public static <T, S extends Geometry> List<Node<T, S>> add(
             Entry<? extends T, ? extends S> entry, NonLeaf<T, S> node) {
         Context<T, S> context = node.context();
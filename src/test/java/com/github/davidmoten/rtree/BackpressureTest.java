@@ -17,7 +17,6 @@ import org.mockito.Mockito;
 import com.github.davidmoten.junit.Asserts;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.Rectangle;
-import com.github.davidmoten.rtree.internal.util.ImmutableStack;
 
 import rx.Subscriber;
 import rx.Subscription;
@@ -34,7 +33,7 @@ public class BackpressureTest {
     @Test
     public void testBackpressureSearch() {
         Subscriber<Object> sub = Mockito.mock(Subscriber.class);
-        ImmutableStack<NodePosition<Object, Geometry>> stack = ImmutableStack.empty();
+        NodeStack<Object, Geometry> stack = new NodeStack<Object, Geometry>();
         Func1<Geometry, Boolean> condition = Mockito.mock(Func1.class);
         Backpressure.search(condition, sub, stack, 1);
         Mockito.verify(sub, Mockito.never()).onNext(Mockito.any());
@@ -82,13 +81,13 @@ public class BackpressureTest {
             }
         });
         Node<Object, Geometry> node = Mockito.mock(Node.class);
-        NodePosition<Object, Geometry> np = new NodePosition<Object, Geometry>(node, 1);
-        ImmutableStack<NodePosition<Object, Geometry>> stack = ImmutableStack
-                .<NodePosition<Object, Geometry>> empty().push(np);
+        NodeStack<Object, Geometry> stack = new NodeStack<Object, Geometry>();
+        stack.push(node, false);
+        stack.nextPosition();
         Func1<Geometry, Boolean> condition = Mockito.mock(Func1.class);
-        ImmutableStack<NodePosition<Object, Geometry>> stack2 = Backpressure.search(condition, sub,
-                stack, 0);
-        assertTrue(stack2 == stack);
+        Backpressure.search(condition, sub, stack, 0);
+        assertTrue(stack.node() == node);
+        assertEquals(1, stack.position());
     }
 
     @SuppressWarnings("unchecked")
@@ -125,13 +124,12 @@ public class BackpressureTest {
         });
         sub.unsubscribe();
         Node<Object, Geometry> node = Mockito.mock(Node.class);
-        NodePosition<Object, Geometry> np = new NodePosition<Object, Geometry>(node, 1);
-        ImmutableStack<NodePosition<Object, Geometry>> stack = ImmutableStack
-                .<NodePosition<Object, Geometry>> empty().push(np);
+        NodeStack<Object, Geometry> stack = new NodeStack<Object, Geometry>();
+        stack.push(node, false);
+        stack.nextPosition();
         Func1<Geometry, Boolean> condition = Mockito.mock(Func1.class);
-        ImmutableStack<NodePosition<Object, Geometry>> stack2 = Backpressure.search(condition, sub,
-                stack, 1);
-        assertTrue(stack2.isEmpty());
+        Backpressure.search(condition, sub, stack, 1);
+        assertTrue(stack.isEmpty());
     }
 
     @Test
@@ -248,6 +246,30 @@ public class BackpressureTest {
         assertEquals(expected, found);
     }
 
+    @Test
+    public void testBackpressureSearchOfCoveredNodesDoesNotTestGeometries() {
+        List<Entry<Object, Rectangle>> list = new ArrayList<Entry<Object, Rectangle>>();
+        for (int i = 1; i <= 17; i++)
+            list.add(e(i));
+        RTree<Object, Rectangle> tree = RTree.star().maxChildren(4).<Object, Rectangle> create()
+                .add(list);
+        CoveringCondition condition = new CoveringCondition() {
+
+            @Override
+            public Boolean call(Geometry g) {
+                throw new RuntimeException("should not be called");
+            }
+
+            @Override
+            public boolean covers(Rectangle r) {
+                return true;
+            }
+        };
+        final Set<Entry<Object, Rectangle>> found = new HashSet<Entry<Object, Rectangle>>();
+        tree.search(condition).subscribe(backpressureSubscriber(found));
+        assertEquals(new HashSet<Entry<Object, Rectangle>>(list), found);
+    }
+
     private static Subscriber<Entry<Object, Rectangle>> backpressureSubscriber(
             final Set<Entry<Object, Rectangle>> found) {
         return new Subscriber<Entry<Object, Rectangle>>() {
@@ -0,0 +1,43 @@
+package com.github.davidmoten.rtree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.github.davidmoten.rtree.geometry.Rectangle;
+
+public class NodeStackTest {
+
+    @Test
+    public void testToString() {
+        @SuppressWarnings("unchecked")
+        Node<Object, Rectangle> node = Mockito.mock(Node.class);
+        NodeStack<Object, Rectangle> stack = new NodeStack<Object, Rectangle>();
+        stack.push(node, false);
+        assertTrue(stack.toString().startsWith("NodeStack [node="));
+    }
+
+    @Test
+    public void testPushBeyondInitialCapacityAndPop() {
+        @SuppressWarnings("unchecked")
+        Node<Object, Rectangle> node = Mockito.mock(Node.class);
+        NodeStack<Object, Rectangle> stack = new NodeStack<Object, Rectangle>();
+        for (int i = 0; i < 20; i++) {
+            stack.push(node, i % 2 == 0);
+            for (int j = 0; j < i; j++) {
+                stack.nextPosition();
+            }
+        }
+        for (int i = 19; i >= 0; i--) {
+            assertFalse(stack.isEmpty());
+            assertEquals(i, stack.position());
+            assertEquals(i % 2 == 0, stack.covered());
+            stack.pop();
+        }
+        assertTrue(stack.isEmpty());
+    }
+
+}
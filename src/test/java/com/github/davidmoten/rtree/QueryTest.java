@@ -0,0 +1,59 @@
+package com.github.davidmoten.rtree;
+
+import static com.github.davidmoten.rtree.geometry.Geometries.circle;
+import static com.github.davidmoten.rtree.geometry.Geometries.point;
+import static com.github.davidmoten.rtree.geometry.Geometries.rectangle;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class QueryTest {
+
+    private static final Query A = Query.intersects(rectangle(0, 0, 10, 10));
+    private static final Query B = Query.intersects(circle(20, 5, 3));
+
+    @Test
+    public void testOrCoversAndPrunesByEitherPart() {
+        Query q = A.or(B);
+        assertTrue(q.call(point(5, 5)));
+        assertTrue(q.call(point(20, 5)));
+        assertFalse(q.call(point(15, 5)));
+        assertTrue(q.covers(rectangle(1, 1, 2, 2)));
+        assertTrue(q.mayMatchWithin(rectangle(19, 4, 21, 6)));
+        // between the two shapes
+        assertFalse(q.mayMatchWithin(rectangle(12, 0, 16, 10)));
+    }
+
+    @Test
+    public void testAndNotPrunesNodesInsideTheNegatedRegion() {
+        Query q = A.and(Query.intersects(rectangle(5, 5, 10, 10)).not());
+        assertTrue(q.call(point(2, 2)));
+        assertFalse(q.call(point(7, 7)));
+        // inside the NOT region
+        assertFalse(q.mayMatchWithin(rectangle(6, 6, 8, 8)));
+        // inside A and clear of the NOT region
+        assertTrue(q.covers(rectangle(1, 1, 3, 3)));
+        // crosses the boundary of the NOT region
+        assertTrue(q.mayMatchWithin(rectangle(4, 4, 6, 6)));
+        assertFalse(q.covers(rectangle(4, 4, 6, 6)));
+    }
+
+    @Test
+    public void testNotOfNotIsOriginal() {
+        Query q = A.not().not();
+        assertTrue(q.call(point(5, 5)));
+        assertFalse(q.call(point(15, 5)));
+        assertTrue(q.covers(rectangle(1, 1, 2, 2)));
+        assertFalse(q.mayMatchWithin(rectangle(12, 12, 13, 13)));
+    }
+
+    @Test
+    public void testQueryOfPlainCondition() {
+        Query q = Query.of(g -> g.mbr().x1() > 5);
+        assertTrue(q.call(point(6, 0)));
+        assertFalse(q.covers(rectangle(6, 0, 7, 1)));
+        assertTrue(q.mayMatchWithin(rectangle(6, 0, 7, 1)));
+    }
+
+}
@@ -22,11 +22,15 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 
@@ -38,8 +42,13 @@ import com.github.davidmoten.rtree.geometry.Geometries;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import com.github.davidmoten.rtree.geometry.HasGeometry;
 import com.github.davidmoten.rtree.geometry.Intersects;
+import com.github.davidmoten.rtree.geometry.Line;
+import com.github.davidmoten.rtree.geometry.LineString;
 import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Polygon;
+import com.github.davidmoten.rtree.geometry.Ray;
 import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.github.davidmoten.rtree.geometry.internal.GeographicUtil;
 import com.github.davidmoten.rtree.internal.EntryDefault;
 import com.github.davidmoten.rtree.internal.Functions;
 
@@ -203,6 +212,18 @@ public class RTreeTest {
         return list;
     }
 
+    private static List<Entry<Object, Geometry>> createRandomRectangleEntries(Random random,
+            int n, double size) {
+        List<Entry<Object, Geometry>> list = new ArrayList<Entry<Object, Geometry>>();
+        for (int i = 0; i < n; i++) {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            list.add(Entries.<Object, Geometry> entry(new Object(),
+                    Geometries.rectangle(x, y, x + size, y + size)));
+        }
+        return list;
+    }
+
     static RTree<Object, Geometry> createRandomRTree(long n) {
         RTree<Object, Geometry> tree = RTree.maxChildren(4).create();
         for (long i = 0; i < n; i++) {
@@ -532,6 +553,112 @@ public class RTreeTest {
         assertEquals(point(4, 4), list.get(3).geometry());
     }
 
+    @Test
+    public void testNearestWithoutMaxDistance() {
+        Object value = new Object();
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create().add(value, point(1, 1))
+                .add(value, point(20, 20)).add(value, point(300, 300)).add(value, point(4000, 4000))
+                .add(value, point(50000, 50000));
+        List<Entry<Object, Geometry>> list = tree.nearest(point(0, 0), 3).toList().toBlocking()
+                .single();
+        assertEquals(3, list.size());
+        assertEquals(point(1, 1), list.get(0).geometry());
+        assertEquals(point(20, 20), list.get(1).geometry());
+        assertEquals(point(300, 300), list.get(2).geometry());
+    }
+
+    @Test
+    public void testNearestAgreesWithSortedSearch() {
+        List<Entry<Object, Geometry>> entries = createRandomEntries(1000);
+        RTree<Object, Geometry> tree = RTree.maxChildren(8).create().add(entries);
+        final Rectangle r = rectangle(300, 300, 310, 320);
+        List<Entry<Object, Geometry>> expected = tree.search(r, 150)
+                .toSortedList((a, b) -> Double.compare(a.geometry().distance(r),
+                        b.geometry().distance(r)))
+                .toBlocking().single();
+        List<Entry<Object, Geometry>> list = tree.nearest(r, 150, 20).toList().toBlocking()
+                .single();
+        assertEquals(Math.min(20, expected.size()), list.size());
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(expected.get(i).geometry().distance(r), list.get(i).geometry().distance(r),
+                    PRECISION);
+        }
+    }
+
+    @Test
+    public void testNearestStreamWithValuePredicate() {
+        RTree<Integer, Point> tree = RTree.maxChildren(4).create();
+        for (int i = 1; i <= 100; i++) {
+            tree = tree.add(i, point(i, 0));
+        }
+        List<Integer> list = tree.nearestStream(point(0, 0)) //
+                .filter(entry -> entry.value() % 10 == 0) //
+                .take(3) //
+                .map(Entry::value) //
+                .toList().toBlocking().single();
+        assertEquals(Arrays.asList(10, 20, 30), list);
+    }
+
+    @Test
+    public void testNearestWithValuePredicate() {
+        RTree<Integer, Point> tree = RTree.maxChildren(4).create();
+        for (int i = 1; i <= 100; i++) {
+            tree = tree.add(i, point(i, 0));
+        }
+        List<Integer> list = tree
+                .nearest(point(0, 0), Double.POSITIVE_INFINITY, 3, entry -> entry.value() % 10 == 0)
+                .map(Entry::value).toList().toBlocking().single();
+        assertEquals(Arrays.asList(10, 20, 30), list);
+        assertEquals(Arrays.asList(10, 20), tree
+                .nearest(point(0, 0), 25, 3, entry -> entry.value() % 10 == 0)
+                .map(Entry::value).toList().toBlocking().single());
+    }
+
+    @Test
+    public void testNearestStreamHonoursBackpressure() {
+        RTree<Integer, Point> tree = RTree.maxChildren(4).create();
+        for (int i = 1; i <= 100; i++) {
+            tree = tree.add(i, point(i, 0));
+        }
+        final List<Integer> values = new ArrayList<Integer>();
+        tree.nearestStream(point(50.2, 0)).subscribe(new Subscriber<Entry<Integer, Point>>() {
+
+            @Override
+            public void onStart() {
+                request(1);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+
+            @Override
+            public void onError(Throwable e) {
+            }
+
+            @Override
+            public void onNext(Entry<Integer, Point> entry) {
+                values.add(entry.value());
+                if (values.size() < 4) {
+                    request(1);
+                }
+            }
+        });
+        assertEquals(Arrays.asList(50, 51, 49, 52), values);
+    }
+
+    @Test
+    public void testNearestStreamUsingDistanceFunction() {
+        RTree<Integer, Point> tree = RTree.maxChildren(4).create();
+        for (int i = 1; i <= 10; i++) {
+            tree = tree.add(i, point(i, 0));
+        }
+        Circle circle = circle(5.5, 3, 1);
+        List<Integer> list = tree.nearestStream(circle, distanceCircleToPoint).take(2)
+                .map(Entry::value).toList().toBlocking().single();
+        assertEquals(Sets.newHashSet(5, 6), new HashSet<Integer>(list));
+    }
+
     @Test
     public void testNearestHonoursUnsubscribeJustBeforeCompletion() {
         Object value = new Object();
@@ -557,6 +684,711 @@ public class RTreeTest {
         assertFalse(completeCalled.get());
     }
 
+    @Test
+    public void testIteratorAgreesWithSearch() {
+        List<Entry<Object, Geometry>> entries = createRandomEntries(1000);
+        RTree<Object, Geometry> tree = RTree.maxChildren(8).create().add(entries);
+        Rectangle r = rectangle(100, 100, 500, 400);
+        Set<Entry<Object, Geometry>> expected = new HashSet<Entry<Object, Geometry>>(
+                tree.search(r).toList().toBlocking().single());
+        Set<Entry<Object, Geometry>> found = new HashSet<Entry<Object, Geometry>>();
+        Iterator<Entry<Object, Geometry>> it = tree.iterator(r);
+        while (it.hasNext()) {
+            found.add(it.next());
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, found);
+    }
+
+    @Test
+    public void testParallelStreamAgreesWithSearch() {
+        List<Entry<Object, Geometry>> entries = createRandomEntries(10000);
+        RTree<Object, Geometry> tree = RTree.maxChildren(8).create(entries);
+        Rectangle r = rectangle(100, 100, 500, 400);
+        Set<Entry<Object, Geometry>> expected = new HashSet<Entry<Object, Geometry>>(
+                tree.search(r).toList().toBlocking().single());
+        assertEquals(expected, tree.stream(r).parallel().collect(Collectors.toSet()));
+        assertEquals(expected.size(), tree.stream(r).count());
+        assertEquals(10000, tree.stream().parallel().count());
+    }
+
+    @Test
+    public void testStreamOfEmptyTree() {
+        RTree<Object, Geometry> tree = RTree.create();
+        assertEquals(0, tree.stream().count());
+        assertFalse(tree.iterator(r(1)).hasNext());
+    }
+
+    @Test
+    public void testJoinAgreesWithSearchPerEntry() {
+        Random random = new Random(123);
+        RTree<Object, Geometry> a = RTree.maxChildren(4)
+                .create(createRandomRectangleEntries(random, 1000, 20));
+        RTree<Object, Geometry> b = RTree.maxChildren(8)
+                .create(createRandomRectangleEntries(random, 300, 20));
+        Set<EntryPair<Object, Geometry, Object, Geometry>> expected = //
+                new HashSet<EntryPair<Object, Geometry, Object, Geometry>>();
+        for (Entry<Object, Geometry> eb : b.entries().toList().toBlocking().single()) {
+            for (Entry<Object, Geometry> ea : a.search(eb.geometry().mbr()).toList().toBlocking()
+                    .single()) {
+                expected.add(new EntryPair<Object, Geometry, Object, Geometry>(ea, eb));
+            }
+        }
+        assertFalse(expected.isEmpty());
+        Func2<Geometry, Geometry, Boolean> intersects = (g, h) -> g.intersects(h.mbr());
+        List<EntryPair<Object, Geometry, Object, Geometry>> found = a.join(b, intersects).toList()
+                .toBlocking().single();
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<EntryPair<Object, Geometry, Object, Geometry>>(found));
+        assertEquals(expected, a.joinStream(b, intersects).parallel().collect(Collectors.toSet()));
+        assertEquals(0, a.join(RTree.<Object, Geometry> create(), intersects).count().toBlocking()
+                .single().intValue());
+    }
+
+    @Test
+    public void testDistanceJoin() {
+        RTree<String, Point> a = RTree.<String, Point> create().add("a1", point(0, 0)).add("a2",
+                point(10, 0));
+        RTree<String, Point> b = RTree.<String, Point> create().add("b1", point(0, 1.5))
+                .add("b2", point(10, 3)).add("b3", point(5, 0));
+        Set<String> found = new HashSet<String>(a.join(b, 2, (p, q) -> p.distance(q))
+                .map(pair -> pair.entry1().value() + pair.entry2().value()).toList().toBlocking()
+                .single());
+        assertEquals(Sets.newHashSet("a1b1"), found);
+        assertEquals(4, a.joinStream(b, 5.5, (p, q) -> p.distance(q)).count());
+    }
+
+    @Test
+    public void testSelfJoinReturnsEachIntersectingPairOnce() {
+        List<Entry<Object, Geometry>> entries = createRandomRectangleEntries(new Random(123), 1000,
+                20);
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(entries);
+        int expected = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            for (int j = i + 1; j < entries.size(); j++) {
+                if (entries.get(i).geometry().intersects(entries.get(j).geometry().mbr())) {
+                    expected++;
+                }
+            }
+        }
+        assertTrue(expected > 0);
+        Func2<Geometry, Geometry, Boolean> intersects = (g, h) -> g.intersects(h.mbr());
+        List<EntryPair<Object, Geometry, Object, Geometry>> found = tree.selfJoin(intersects)
+                .toList().toBlocking().single();
+        assertEquals(expected, found.size());
+        for (EntryPair<Object, Geometry, Object, Geometry> pair : found) {
+            assertTrue(pair.entry1() != pair.entry2());
+        }
+        assertEquals(expected, tree.selfJoinStream(intersects).parallel().count());
+        assertEquals(expected, tree.selfJoin(Double.MIN_VALUE, (g, h) -> g.distance(h.mbr()))
+                .count().toBlocking().single().intValue());
+    }
+
+    @Test
+    public void testNearestJoinAgreesWithNearest() {
+        RTree<Object, Geometry> data = RTree.maxChildren(4).create(createRandomEntries(2000));
+        List<Entry<Object, Geometry>> queries = createRandomEntries(300);
+        RTree<Object, Geometry> tree = RTree.maxChildren(8).create(queries);
+        for (double maxDistance : new double[] { 20, Double.POSITIVE_INFINITY }) {
+            List<EntryPair<Object, Geometry, Object, Geometry>> found = tree
+                    .nearestJoin(data, maxDistance, 5).toList().toBlocking().single();
+            int index = 0;
+            for (Entry<Object, Geometry> query : tree.entries().toList().toBlocking().single()) {
+                Rectangle r = query.geometry().mbr();
+                for (Entry<Object, Geometry> expected : data.nearest(r, maxDistance, 5).toList()
+                        .toBlocking().single()) {
+                    EntryPair<Object, Geometry, Object, Geometry> pair = found.get(index++);
+                    assertTrue(pair.entry1() == query);
+                    assertEquals(expected.geometry().distance(r),
+                            pair.entry2().geometry().distance(r), PRECISION);
+                }
+            }
+            assertEquals(index, found.size());
+            assertEquals(found, tree.nearestJoinStream(data, maxDistance, 5).parallel()
+                    .collect(Collectors.toList()));
+        }
+        assertEquals(0, tree.nearestJoinStream(RTree.<Object, Geometry> create(), 5).count());
+    }
+
+    @Test
+    public void testClosestPairsAgreesWithBruteForce() {
+        List<Entry<Object, Geometry>> as = createRandomEntries(500);
+        List<Entry<Object, Geometry>> bs = createRandomEntries(300);
+        RTree<Object, Geometry> a = RTree.maxChildren(4).create(as);
+        RTree<Object, Geometry> b = RTree.maxChildren(8).create(bs);
+        List<Double> expected = new ArrayList<Double>();
+        for (Entry<Object, Geometry> ea : as) {
+            for (Entry<Object, Geometry> eb : bs) {
+                expected.add(ea.geometry().distance(eb.geometry().mbr()));
+            }
+        }
+        Collections.sort(expected);
+        List<Double> found = a.closestPairs(b, 20)
+                .map(pair -> pair.entry1().geometry().distance(pair.entry2().geometry().mbr()))
+                .toList().toBlocking().single();
+        assertEquals(expected.subList(0, 20), found);
+        assertEquals(0, a.closestPairs(RTree.<Object, Geometry> create(), 20).count()
+                .toBlocking().single().intValue());
+    }
+
+    @Test
+    public void testFarthest() {
+        RTree<Integer, Point> tree = RTree.maxChildren(4).create();
+        for (int i = 1; i <= 100; i++) {
+            tree = tree.add(i, point(i, i % 7));
+        }
+        final Point p = point(30.5, 2);
+        List<Integer> expected = tree.entries().toList().toBlocking().single().stream()
+                .sorted((e, f) -> Double.compare(f.geometry().distance(p.mbr()),
+                        e.geometry().distance(p.mbr())))
+                .limit(10).map(Entry::value).collect(Collectors.toList());
+        assertEquals(expected,
+                tree.farthest(p, 10).map(Entry::value).toList().toBlocking().single());
+        assertEquals(Arrays.asList(100, 99, 98),
+                tree.farthest(point(0, 0), 3).map(Entry::value).toList().toBlocking().single());
+    }
+
+    @Test
+    public void testReverseNearestAgreesWithBruteForce() {
+        List<Entry<Integer, Point>> entries = new ArrayList<Entry<Integer, Point>>();
+        for (int i = 0; i < 500; i++) {
+            // coordinates on a grid so that there are ties and duplicates
+            entries.add(entry(i,
+                    point(Math.floor(Math.random() * 60), Math.floor(Math.random() * 60))));
+        }
+        RTree<Integer, Point> tree = RTree.maxChildren(4).create(entries);
+        Point q = point(30, 30);
+        for (int k = 1; k <= 5; k++) {
+            Set<Integer> expected = new HashSet<Integer>();
+            for (Entry<Integer, Point> e : entries) {
+                double d = e.geometry().distance(q.mbr());
+                int closer = 0;
+                for (Entry<Integer, Point> other : entries) {
+                    if (other != e && e.geometry().distance(other.geometry().mbr()) < d) {
+                        closer++;
+                    }
+                }
+                if (closer < k) {
+                    expected.add(e.value());
+                }
+            }
+            assertEquals(expected, new HashSet<Integer>(tree.reverseNearest(q, k)
+                    .map(Entry::value).toList().toBlocking().single()));
+        }
+        assertEquals(0, RTree.<Integer, Point> create().reverseNearest(q, 1).count().toBlocking()
+                .single().intValue());
+    }
+
+    @Test
+    public void testSkylineAgreesWithBruteForce() {
+        List<Entry<Integer, Point>> entries = new ArrayList<Entry<Integer, Point>>();
+        for (int i = 0; i < 1000; i++) {
+            // coordinates on a grid so that there are ties and duplicates
+            entries.add(entry(i,
+                    point(Math.floor(Math.random() * 100), Math.floor(Math.random() * 100))));
+        }
+        RTree<Integer, Point> tree = RTree.maxChildren(4).create(entries);
+        Set<Integer> expected = new HashSet<Integer>();
+        for (Entry<Integer, Point> e : entries) {
+            boolean dominated = false;
+            for (Entry<Integer, Point> other : entries) {
+                Point p = e.geometry();
+                Point q = other.geometry();
+                if (q.x() <= p.x() && q.y() <= p.y() && (q.x() < p.x() || q.y() < p.y())) {
+                    dominated = true;
+                }
+            }
+            if (!dominated) {
+                expected.add(e.value());
+            }
+        }
+        List<Integer> found = tree.skyline().map(Entry::value).toList().toBlocking().single();
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<Integer>(found));
+        assertEquals(0, RTree.<Integer, Point> create().skyline().count().toBlocking().single()
+                .intValue());
+    }
+
+    @Test
+    public void testSkylineIsProgressive() {
+        RTree<String, Point> tree = RTree.maxChildren(4).<String, Point> create()
+                .add("a", point(1, 9)).add("b", point(2, 2)).add("c", point(8, 1))
+                .add("d", point(3, 3)).add("e", point(9, 9)).add("f", point(5, 1.5));
+        // in ascending order of x + y
+        assertEquals(asList("b", "f", "c", "a"),
+                tree.skyline().map(Entry::value).toList().toBlocking().single());
+        assertEquals(asList("b"),
+                tree.skyline().take(1).map(Entry::value).toList().toBlocking().single());
+    }
+
+    @Test
+    public void testCountAgreesWithSearch() {
+        List<Entry<Object, Geometry>> entries = createRandomEntries(1000);
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(entries);
+        for (int i = 0; i < 50; i++) {
+            double x = Math.random() * 1000;
+            double y = Math.random() * 1000;
+            Rectangle r = Geometries.rectangle(x, y, x + Math.random() * 300,
+                    y + Math.random() * 300);
+            assertEquals((int) tree.search(r).count().toBlocking().single(), tree.count(r));
+        }
+        assertEquals(1000, tree.count(Geometries.rectangle(-1, -1, 1002, 1002)));
+    }
+
+    @Test
+    public void testCountAfterDelete() {
+        List<Entry<Object, Geometry>> entries = createRandomEntries(1000);
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create().add(entries);
+        tree = tree.delete(entries.subList(0, 400));
+        assertEquals(600, tree.count(Geometries.rectangle(-1, -1, 1002, 1002)));
+        Rectangle r = Geometries.rectangle(100, 100, 500, 600);
+        assertEquals((int) tree.search(r).count().toBlocking().single(), tree.count(r));
+    }
+
+    @Test
+    public void testCountOfEmptyTree() {
+        assertEquals(0, RTree.create().count(r(1)));
+    }
+
+    @Test
+    public void testAggregateAgreesWithSearch() {
+        Monoid<Integer, Long> sum = Monoid.create(0L, v -> (long) v, (a, b) -> a + b);
+        List<Entry<Integer, Point>> entries = new ArrayList<Entry<Integer, Point>>();
+        for (int i = 0; i < 1000; i++) {
+            entries.add(Entries.entry(i, Geometries.point(Math.random() * 100, Math.random() * 100)));
+        }
+        RTree<Integer, Point> packed = RTree.maxChildren(4).aggregate(sum)
+                .create(new ArrayList<Entry<Integer, Point>>(entries));
+        RTree<Integer, Point> added = RTree.maxChildren(4).aggregate(sum).<Point> create()
+                .add(entries).delete(entries.subList(0, 300));
+        Monoid<Integer, Long> uncached = Monoid.create(0L, v -> (long) v, (a, b) -> a + b);
+        for (RTree<Integer, Point> tree : Arrays.asList(packed, added)) {
+            for (int i = 0; i < 20; i++) {
+                double x = Math.random() * 80;
+                double y = Math.random() * 80;
+                Rectangle r = Geometries.rectangle(x, y, x + 20, y + 20);
+                long expected = tree.search(r).map(e -> (long) e.value())
+                        .reduce(0L, (a, b) -> a + b).toBlocking().single();
+                assertEquals(expected, (long) tree.aggregate(r, sum));
+                assertEquals(expected, (long) tree.aggregate(r, uncached));
+            }
+        }
+        assertEquals(999 * 1000 / 2 - 299 * 300 / 2,
+                (long) added.aggregate(Geometries.rectangle(-1, -1, 101, 101), sum));
+    }
+
+    @Test
+    public void testAggregateOfTreeBulkLoadedEmptyKeepsMonoid() {
+        Monoid<Integer, Long> sum = Monoid.create(0L, v -> (long) v, (a, b) -> a + b);
+        RTree<Integer, Point> tree = RTree.maxChildren(4).aggregate(sum)
+                .create(new ArrayList<Entry<Integer, Point>>())
+                .add(1, Geometries.point(1, 1)).add(2, Geometries.point(2, 2));
+        assertTrue(tree.context().monoid().isPresent());
+        assertEquals(3, (long) tree.aggregate(Geometries.rectangle(0, 0, 3, 3), sum));
+    }
+
+    @Test
+    public void testAggregateOfEmptyTree() {
+        Monoid<Object, Integer> count = Monoid.create(0, v -> 1, (a, b) -> a + b);
+        assertEquals(0, (int) RTree.create().aggregate(r(1), count));
+    }
+
+    @Test
+    public void testSearchOfCoveredNodesAgreesWithConditionSearch() {
+        List<Entry<Object, Geometry>> entries = createRandomEntries(1000);
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(entries);
+        for (int i = 0; i < 20; i++) {
+            double x = Math.random() * 700;
+            double y = Math.random() * 700;
+            Rectangle r = Geometries.rectangle(x, y, x + 300, y + 300);
+            Set<Entry<Object, Geometry>> expected = new HashSet<Entry<Object, Geometry>>(
+                    tree.search(g -> g.intersects(r)).toList().toBlocking().single());
+            assertEquals(expected, new HashSet<Entry<Object, Geometry>>(
+                    tree.search(r).toList().toBlocking().single()));
+            assertEquals(expected, new HashSet<Entry<Object, Geometry>>(
+                    tree.search(r).rebatchRequests(1).toList().toBlocking().single()));
+            Set<Entry<Object, Geometry>> expectedNear = new HashSet<Entry<Object, Geometry>>(
+                    tree.search(g -> g.distance(r) < 50).toList().toBlocking().single());
+            assertEquals(expectedNear, new HashSet<Entry<Object, Geometry>>(
+                    tree.search(r, 50).toList().toBlocking().single()));
+            assertEquals(expectedNear, new HashSet<Entry<Object, Geometry>>(
+                    tree.search(r, 50).rebatchRequests(1).toList().toBlocking().single()));
+        }
+    }
+
+    @Test
+    public void testSearchOfManyRectanglesAgreesWithSeparateSearches() {
+        List<Entry<Object, Geometry>> entries = createRandomEntries(1000);
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(entries);
+        List<Rectangle> rectangles = new ArrayList<Rectangle>();
+        Set<IndexedEntry<Object, Geometry>> expected = new HashSet<IndexedEntry<Object, Geometry>>();
+        for (int i = 0; i < 50; i++) {
+            double x = Math.random() * 900;
+            double y = Math.random() * 900;
+            Rectangle r = Geometries.rectangle(x, y, x + 100, y + 100);
+            rectangles.add(r);
+            for (Entry<Object, Geometry> entry : tree.search(r).toBlocking().toIterable()) {
+                expected.add(new IndexedEntry<Object, Geometry>(i, entry));
+            }
+        }
+        List<IndexedEntry<Object, Geometry>> found = tree.search(rectangles).toList().toBlocking()
+                .single();
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<IndexedEntry<Object, Geometry>>(found));
+    }
+
+    @Test
+    public void testSearchOfNoRectangles() {
+        RTree<Object, Geometry> tree = RTree.create(createRandomEntries(100));
+        assertEquals(0, (int) tree.search(Collections.<Rectangle> emptyList()).count().toBlocking()
+                .single());
+    }
+
+    @Test
+    public void testRectangleSearchOfMixedGeometriesAgreesWithIntersects() {
+        List<Entry<Object, Geometry>> entries = new ArrayList<Entry<Object, Geometry>>();
+        for (int i = 0; i < 1000; i++) {
+            double x = Math.random() * 100;
+            double y = Math.random() * 100;
+            final Geometry g;
+            if (i % 5 == 0)
+                g = Geometries.point((float) x, (float) y);
+            else if (i % 5 == 1)
+                g = Geometries.rectangle(x, y, x + 2, y + 3);
+            else if (i % 5 == 2)
+                g = Geometries.circle(x, y, 1.5);
+            else if (i % 5 == 3)
+                g = Geometries.line(x, y, x + 3, y - 2);
+            else
+                g = Geometries.point(x, y);
+            entries.add(Entries.entry(i, g));
+        }
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(entries);
+        for (int i = 0; i < 20; i++) {
+            double x = Math.random() * 80;
+            double y = Math.random() * 80;
+            Rectangle r = Geometries.rectangle(x, y, x + 20, y + 20);
+            Set<Entry<Object, Geometry>> expected = new HashSet<Entry<Object, Geometry>>();
+            for (Entry<Object, Geometry> entry : entries) {
+                if (entry.geometry().intersects(r)) {
+                    expected.add(entry);
+                }
+            }
+            assertEquals(expected, new HashSet<Entry<Object, Geometry>>(
+                    tree.search(r).toList().toBlocking().single()));
+        }
+    }
+
+    @Test
+    public void testVisitorSearchAgreesWithSearch() {
+        List<Entry<Object, Geometry>> entries = createRandomEntries(1000);
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(entries);
+        Rectangle r = Geometries.rectangle(200, 300, 600, 500);
+        List<Entry<Object, Geometry>> found = new ArrayList<Entry<Object, Geometry>>();
+        assertTrue(tree.search(r, entry -> found.add(entry)));
+        assertEquals(new HashSet<Entry<Object, Geometry>>(
+                tree.search(r).toList().toBlocking().single()),
+                new HashSet<Entry<Object, Geometry>>(found));
+    }
+
+    @Test
+    public void testVisitorSearchStopsWhenVisitorReturnsFalse() {
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(createRandomEntries(1000));
+        List<Entry<Object, Geometry>> found = new ArrayList<Entry<Object, Geometry>>();
+        assertFalse(tree.search(Geometries.rectangle(-1, -1, 1002, 1002), entry -> {
+            found.add(entry);
+            return found.size() < 3;
+        }));
+        assertEquals(3, found.size());
+    }
+
+    @Test
+    public void testVisitWithNodeFilter() {
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(createRandomEntries(1000));
+        Rectangle r = Geometries.rectangle(200, 300, 600, 500);
+        int[] count = new int[1];
+        assertTrue(tree.visit(node -> node.geometry().mbr().intersects(r), entry -> {
+            if (entry.geometry().intersects(r))
+                count[0]++;
+            return true;
+        }));
+        assertEquals(tree.count(r), count[0]);
+        assertTrue(tree.visit(node -> false, entry -> {
+            throw new RuntimeException("unexpected");
+        }));
+    }
+
+    @Test
+    public void testTopAgreesWithSortByScore() {
+        RTree<Integer, Point> tree = RTree.maxChildren(4).create();
+        for (int i = 0; i < 1000; i++) {
+            tree = tree.add(i % 97, point((i * 37) % 1000, (i * 53) % 1000));
+        }
+        Point p = point(500, 500);
+        Func1<Entry<Integer, Point>, Double> score = e -> e.value()
+                / (1 + e.geometry().distance(p.mbr()));
+        List<Double> top = tree.top(10, score, r -> 96.0 / (1 + r.distance(p.mbr()))).map(score)
+                .toList().toBlocking().single();
+        List<Double> expected = tree.entries().map(score).toList().toBlocking().single();
+        Collections.sort(expected, Collections.reverseOrder());
+        assertEquals(expected.subList(0, 10), top);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopRejectsNaNScore() {
+        RTree<Double, Point> tree = RTree.<Double, Point> create().add(1.0, point(1, 1))
+                .add(Double.NaN, point(2, 2));
+        tree.top(2, e -> e.value(), r -> 1.0).toList().toBlocking().single();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopRejectsNegativeInfiniteScore() {
+        RTree<Double, Point> tree = RTree.<Double, Point> create().add(1.0, point(1, 1))
+                .add(Double.NEGATIVE_INFINITY, point(2, 2));
+        tree.top(2, e -> e.value(), r -> 1.0).toList().toBlocking().single();
+    }
+
+    @Test
+    public void testTopOfEmptyTree() {
+        RTree<Integer, Point> tree = RTree.create();
+        assertEquals(0, (int) tree.top(3, e -> 1.0, r -> 1.0).count().toBlocking().single());
+    }
+
+    @Test
+    public void testGeographicSearchAgreesWithBruteForceNearAntimeridianAndPole() {
+        List<Entry<Integer, Point>> entries = new ArrayList<Entry<Integer, Point>>();
+        for (int i = 0; i < 5000; i++) {
+            entries.add(entry(i, Geometries.pointGeographic((i * 7.31) % 360 - 180,
+                    (i * 3.17) % 180 - 90)));
+        }
+        RTree<Integer, Point> tree = RTree.maxChildren(6).create(entries);
+        for (Point p : asList(Geometries.pointGeographic(179.9, 10),
+                Geometries.pointGeographic(-179.5, -40), Geometries.pointGeographic(0, 89.9))) {
+            double maxDistanceMetres = 1000000;
+            Set<Integer> expected = new HashSet<Integer>();
+            List<Double> distances = new ArrayList<Double>();
+            for (Entry<Integer, Point> e : entries) {
+                double d = GeographicUtil.distanceMetres(p.x(), p.y(), e.geometry());
+                if (d < maxDistanceMetres) {
+                    expected.add(e.value());
+                    distances.add(d);
+                }
+            }
+            assertFalse(expected.isEmpty());
+            Set<Integer> found = new HashSet<Integer>();
+            for (Entry<Integer, Point> e : tree.searchGeographic(p, maxDistanceMetres).toList()
+                    .toBlocking().single()) {
+                found.add(e.value());
+            }
+            assertEquals(expected, found);
+
+            Collections.sort(distances);
+            List<Double> nearest = tree.nearestGeographic(p, maxDistanceMetres, 5)
+                    .map(e -> GeographicUtil.distanceMetres(p.x(), p.y(), e.geometry())).toList()
+                    .toBlocking().single();
+            assertEquals(distances.subList(0, Math.min(5, distances.size())), nearest);
+        }
+    }
+
+    @Test
+    public void testPolygonSearchAgreesWithIntersectsFilter() {
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(createRandomEntries(1000));
+        // a concave star
+        double[] xy = new double[24];
+        for (int i = 0; i < 12; i++) {
+            double angle = 2 * Math.PI * i / 12;
+            double radius = i % 2 == 0 ? 400 : 120;
+            xy[2 * i] = 500 + radius * Math.cos(angle);
+            xy[2 * i + 1] = 500 + radius * Math.sin(angle);
+        }
+        Polygon polygon = Geometries.polygon(xy);
+        Set<Entry<Object, Geometry>> expected = new HashSet<Entry<Object, Geometry>>(
+                tree.search(polygon, Intersects.geometryIntersectsPolygon).toList().toBlocking()
+                        .single());
+        Set<Entry<Object, Geometry>> found = new HashSet<Entry<Object, Geometry>>(
+                tree.search(polygon).toList().toBlocking().single());
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, found);
+    }
+
+    @Test
+    public void testCircleAndLineSearchAgreeWithExactIntersects() {
+        List<Entry<Integer, Geometry>> entries = new ArrayList<Entry<Integer, Geometry>>();
+        for (int i = 0; i < 2000; i++) {
+            double x = (i * 37) % 1000;
+            double y = (i * 53) % 1000;
+            final Geometry g;
+            switch (i % 4) {
+            case 0:
+                g = point(x, y);
+                break;
+            case 1:
+                g = rectangle(x, y, x + 5, y + 8);
+                break;
+            case 2:
+                g = circle(x, y, 4);
+                break;
+            default:
+                g = line(x, y, x + 6, y - 4);
+            }
+            entries.add(entry(i, g));
+        }
+        RTree<Integer, Geometry> tree = RTree.maxChildren(4).create(entries);
+        Line diagonal = line(0, 0, 1000, 1000);
+        Circle c = circle(500, 500, 300);
+        Set<Integer> expectedLine = new HashSet<Integer>();
+        Set<Integer> expectedCircle = new HashSet<Integer>();
+        for (Entry<Integer, Geometry> e : entries) {
+            if (Intersects.geometryIntersectsLine.call(e.geometry(), diagonal))
+                expectedLine.add(e.value());
+            if (Intersects.geometryIntersectsCircle.call(e.geometry(), c))
+                expectedCircle.add(e.value());
+        }
+        assertFalse(expectedLine.isEmpty());
+        assertEquals(expectedLine, new HashSet<Integer>(
+                tree.search(diagonal).map(Entry::value).toList().toBlocking().single()));
+        assertEquals(expectedCircle, new HashSet<Integer>(
+                tree.search(c).map(Entry::value).toList().toBlocking().single()));
+    }
+
+    @Test
+    public void testCorridorSearchAgreesWithDistanceFilter() {
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(createRandomEntries(2000));
+        LineString route = Geometries.lineString(0, 0, 200, 350, 450, 300, 700, 800, 1000, 900);
+        for (double maxDistance : new double[] { 1, 10, 50 }) {
+            Set<Entry<Object, Geometry>> expected = new HashSet<Entry<Object, Geometry>>(
+                    tree.entries().filter(e -> route.distance(e.geometry().mbr()) < maxDistance)
+                            .toList().toBlocking().single());
+            Set<Entry<Object, Geometry>> found = new HashSet<Entry<Object, Geometry>>(
+                    tree.search(route, maxDistance).toList().toBlocking().single());
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void testSearchWithinAgreesWithContainsFilter() {
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(createRandomEntries(1000));
+        Rectangle r = rectangle(200, 300, 600, 500);
+        Set<Entry<Object, Geometry>> expected = new HashSet<Entry<Object, Geometry>>(
+                tree.search(r).filter(e -> r.x1() <= e.geometry().mbr().x1()
+                        && e.geometry().mbr().x2() <= r.x2() && r.y1() <= e.geometry().mbr().y1()
+                        && e.geometry().mbr().y2() <= r.y2()).toList().toBlocking().single());
+        assertFalse(expected.isEmpty());
+        assertEquals(expected,
+                new HashSet<Entry<Object, Geometry>>(tree.searchWithin(r).toList().toBlocking().single()));
+        assertEquals(expected, new HashSet<Entry<Object, Geometry>>(
+                tree.searchWithin(r).rebatchRequests(1).toList().toBlocking().single()));
+    }
+
+    @Test
+    public void testSearchContaining() {
+        RTree<String, Geometry> tree = RTree.maxChildren(4).<String, Geometry> create()
+                .add("big", rectangle(0, 0, 10, 10))
+                .add("small", rectangle(4, 4, 6, 6))
+                .add("circle", circle(5, 5, 2))
+                .add("elsewhere", rectangle(20, 20, 30, 30))
+                .add("point", point(5, 5));
+        assertEquals(Sets.newHashSet("big", "small", "circle", "point"), new HashSet<String>(
+                tree.searchContaining(point(5, 5)).map(Entry::value).toList().toBlocking().single()));
+        assertEquals(Sets.newHashSet("big", "small", "circle"), new HashSet<String>(tree
+                .searchContaining(rectangle(4, 4, 5.9, 5.9)).map(Entry::value).toList().toBlocking()
+                .single()));
+        assertEquals(Sets.newHashSet("big"), new HashSet<String>(tree
+                .searchContaining(rectangle(1, 1, 5, 5)).map(Entry::value).toList().toBlocking()
+                .single()));
+        assertTrue(tree.searchContaining(point(15, 15)).toList().toBlocking().single().isEmpty());
+    }
+
+    @Test
+    public void testRaySearchReturnsHitsInOrderOfDistance() {
+        Ray ray = Geometries.ray(10, 20, 3, 2);
+        // make sure the ray hits something
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(createRandomEntries(2000))
+                .add(new Object(), rectangle(100, 70, 101, 90))
+                .add(new Object(), circle(400, 280, 5))
+                .add(new Object(), line(700, 400, 700, 500));
+        List<Double> expected = new ArrayList<Double>(tree.entries()
+                .map(e -> ray.hit(e.geometry())).filter(t -> t < Double.POSITIVE_INFINITY)
+                .toList().toBlocking().single());
+        Collections.sort(expected);
+        assertTrue(expected.size() >= 3);
+        assertEquals(expected, tree.search(ray).map(e -> ray.hit(e.geometry())).toList()
+                .toBlocking().single());
+        assertEquals(expected.subList(0, 3), tree.firstHits(ray, 3)
+                .map(e -> ray.hit(e.geometry())).toList().toBlocking().single());
+    }
+
+    @Test
+    public void testRaySearchOfMixedGeometries() {
+        RTree<String, Geometry> tree = RTree.maxChildren(4).<String, Geometry> create()
+                .add("behind", rectangle(-5, 4, -3, 6))
+                .add("circle", circle(10, 5, 1))
+                .add("box", rectangle(2, 0, 4, 10))
+                .add("line", line(6, 0, 6, 10))
+                .add("miss", rectangle(2, 7, 20, 9))
+                .add("triangle", Geometries.polygon(12, 0, 14, 10, 16, 0));
+        assertEquals(asList("box", "line", "circle", "triangle"), tree
+                .search(Geometries.ray(0, 5, 1, 0)).map(Entry::value).toList().toBlocking().single());
+        assertEquals(asList("box"), tree.firstHits(Geometries.ray(3, 5, 1, 0), 1)
+                .map(Entry::value).toList().toBlocking().single());
+    }
+
+    @Test
+    public void testQuerySearchAgreesWithCombinedSearches() {
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(createRandomEntries(1000));
+        Rectangle a = rectangle(100, 100, 500, 400);
+        Circle b = circle(600, 600, 250);
+        Rectangle c = rectangle(300, 300, 700, 700);
+        Set<Entry<Object, Geometry>> expected = new HashSet<Entry<Object, Geometry>>(
+                tree.search(a).toList().toBlocking().single());
+        expected.addAll(tree.search(b).toList().toBlocking().single());
+        expected.removeAll(tree.search(c).toList().toBlocking().single());
+        assertFalse(expected.isEmpty());
+        Query query = Query.intersects(a).or(Query.intersects(b)).and(Query.intersects(c).not());
+        List<Entry<Object, Geometry>> found = tree.search(query).toList().toBlocking().single();
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<Entry<Object, Geometry>>(found));
+        assertEquals(expected, new HashSet<Entry<Object, Geometry>>(
+                tree.search(query).rebatchRequests(1).toList().toBlocking().single()));
+    }
+
+    @Test
+    public void testSearchWithBudgetThatIsNotExhausted() {
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(createRandomEntries(1000));
+        Rectangle r = rectangle(200, 300, 600, 500);
+        SearchResult<Object, Geometry> result = tree.search(r, Budget.maxNodes(Long.MAX_VALUE));
+        assertTrue(result.isComplete());
+        assertEquals(new HashSet<Entry<Object, Geometry>>(tree.search(r).toList().toBlocking().single()),
+                new HashSet<Entry<Object, Geometry>>(result.entries()));
+    }
+
+    @Test
+    public void testSearchWithNodeBudgetReturnsPartialResult() {
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(createRandomEntries(1000));
+        Rectangle r = rectangle(-1, -1, 1002, 1002);
+        SearchResult<Object, Geometry> result = tree.search(r, Budget.maxNodes(10));
+        assertFalse(result.isComplete());
+        assertFalse(result.entries().isEmpty());
+        assertTrue(result.entries().size() < 1000);
+        assertTrue(tree.search(r).toList().toBlocking().single().containsAll(result.entries()));
+    }
+
+    @Test
+    public void testSearchWithExpiredTimeoutIsIncomplete() {
+        RTree<Object, Geometry> tree = RTree.maxChildren(4).create(createRandomEntries(1000));
+        SearchResult<Object, Geometry> result = tree.search(
+                Query.intersects(rectangle(-1, -1, 1002, 1002)),
+                Budget.timeout(0, TimeUnit.MILLISECONDS));
+        assertFalse(result.isComplete());
+        assertTrue(result.entries().isEmpty());
+    }
+
+    @Test
+    public void testSearchWithBudgetOfEmptyTree() {
+        RTree<Object, Geometry> tree = RTree.create();
+        assertTrue(tree.search(rectangle(0, 0, 1, 1), Budget.maxNodes(0)).isComplete());
+    }
+
     @Test
     public void testVisualizer() {
         List<Entry<Object, Geometry>> entries = createRandomEntries(1000);
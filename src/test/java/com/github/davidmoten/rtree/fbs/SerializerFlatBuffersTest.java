@@ -3,22 +3,37 @@ package com.github.davidmoten.rtree.fbs;
 import static org.junit.Assert.assertEquals;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.junit.Test;
 
+import com.github.davidmoten.rtree.Entries;
 import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.GreekEarthquakes;
 import com.github.davidmoten.rtree.InternalStructure;
 import com.github.davidmoten.rtree.Precision;
 import com.github.davidmoten.rtree.RTree;
 import com.github.davidmoten.rtree.Serializer;
+import com.github.davidmoten.rtree.fbs.generated.Node_;
+import com.github.davidmoten.rtree.geometry.Circle;
 import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Intersects;
+import com.github.davidmoten.rtree.geometry.Line;
 import com.github.davidmoten.rtree.geometry.Point;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.google.flatbuffers.FlatBufferBuilder;
 
 import rx.Observable;
 import rx.functions.Func1;
@@ -105,6 +120,167 @@ public class SerializerFlatBuffersTest {
         System.out.println(tr.size());
     }
 
+    @Test
+    public void testNearestOnFlatBuffersSingleArray() throws Exception {
+        RTree<Object, Point> tree = RTree.star().maxChildren(10).create();
+        tree = tree.add(GreekEarthquakes.entries(Precision.SINGLE)).last().toBlocking().single();
+        Serializer<Object, Point> fbSerializer = createSerializer();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        fbSerializer.write(tree, os);
+        byte[] bytes = os.toByteArray();
+        RTree<Object, Point> tr = fbSerializer.read(new ByteArrayInputStream(bytes), bytes.length,
+                InternalStructure.SINGLE_ARRAY);
+        Point p = Geometries.point(22.5, 38.5);
+        List<Point> expected = tree.nearest(p, 10).map(Entry::geometry).toList().toBlocking()
+                .single();
+        List<Point> found = tr.nearest(p, 10).map(Entry::geometry).toList().toBlocking()
+                .single();
+        assertEquals(expected, found);
+    }
+
+    @Test
+    public void testRectangleSearchOfMixedGeometriesOnFlatBuffersSingleArray() throws Exception {
+        List<Entry<Integer, Geometry>> entries = new ArrayList<Entry<Integer, Geometry>>();
+        for (int i = 0; i < 1000; i++) {
+            double x = Math.random() * 100;
+            double y = Math.random() * 100;
+            final Geometry g;
+            switch (i % 6) {
+            case 0:
+                g = Geometries.point(x, y);
+                break;
+            case 1:
+                g = Geometries.point((float) x, (float) y);
+                break;
+            case 2:
+                g = Geometries.rectangle(x, y, x + 2, y + 3);
+                break;
+            case 3:
+                g = Geometries.rectangle((float) x, (float) y, (float) x + 2, (float) y + 3);
+                break;
+            case 4:
+                g = Geometries.circle(x, y, 1.5);
+                break;
+            default:
+                g = Geometries.line(x, y, x + 3, y - 2);
+            }
+            entries.add(Entries.entry(i, g));
+        }
+        RTree<Integer, Geometry> tree = RTree.star().maxChildren(4).create(entries);
+        Serializer<Integer, Geometry> serializer = SerializerFlatBuffers.create(
+                n -> ByteBuffer.allocate(4).putInt(n).array(), b -> ByteBuffer.wrap(b).getInt());
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        serializer.write(tree, os);
+        byte[] bytes = os.toByteArray();
+        RTree<Integer, Geometry> tr = serializer.read(new ByteArrayInputStream(bytes),
+                bytes.length, InternalStructure.SINGLE_ARRAY);
+        for (int i = 0; i < 20; i++) {
+            double x = Math.random() * 80;
+            double y = Math.random() * 80;
+            Rectangle r = Geometries.rectangle(x, y, x + 20, y + 20);
+            Set<Integer> expected = new HashSet<Integer>(tree.search(r)
+                    .map(Entry::value).toList().toBlocking().single());
+            Set<Integer> found = new HashSet<Integer>(
+                    tr.search(r).map(Entry::value).toList().toBlocking().single());
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void testCircleAndLineSearchOfMixedGeometriesOnFlatBuffersSingleArray()
+            throws Exception {
+        List<Entry<Integer, Geometry>> entries = new ArrayList<Entry<Integer, Geometry>>();
+        for (int i = 0; i < 1000; i++) {
+            double x = Math.random() * 100;
+            double y = Math.random() * 100;
+            final Geometry g;
+            switch (i % 4) {
+            case 0:
+                g = Geometries.point(x, y);
+                break;
+            case 1:
+                g = Geometries.rectangle(x, y, x + 2, y + 3);
+                break;
+            case 2:
+                g = Geometries.circle(x, y, 1.5);
+                break;
+            default:
+                g = Geometries.line(x, y, x + 3, y - 2);
+            }
+            entries.add(Entries.entry(i, g));
+        }
+        RTree<Integer, Geometry> tree = RTree.star().maxChildren(4).create(entries);
+        Serializer<Integer, Geometry> serializer = SerializerFlatBuffers.create(
+                n -> ByteBuffer.allocate(4).putInt(n).array(), b -> ByteBuffer.wrap(b).getInt());
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        serializer.write(tree, os);
+        byte[] bytes = os.toByteArray();
+        RTree<Integer, Geometry> tr = serializer.read(new ByteArrayInputStream(bytes),
+                bytes.length, InternalStructure.SINGLE_ARRAY);
+        for (int i = 0; i < 20; i++) {
+            Line line = Geometries.line(Math.random() * 100, Math.random() * 100,
+                    Math.random() * 100, Math.random() * 100);
+            Circle circle = Geometries.circle(Math.random() * 100, Math.random() * 100,
+                    Math.random() * 30);
+            Set<Integer> expectedLine = new HashSet<Integer>();
+            Set<Integer> expectedCircle = new HashSet<Integer>();
+            for (Entry<Integer, Geometry> e : entries) {
+                if (Intersects.geometryIntersectsLine.call(e.geometry(), line))
+                    expectedLine.add(e.value());
+                if (Intersects.geometryIntersectsCircle.call(e.geometry(), circle))
+                    expectedCircle.add(e.value());
+            }
+            assertEquals(expectedLine, new HashSet<Integer>(
+                    tr.search(line).map(Entry::value).toList().toBlocking().single()));
+            assertEquals(expectedCircle, new HashSet<Integer>(
+                    tr.search(circle).map(Entry::value).toList().toBlocking().single()));
+        }
+    }
+
+    @Test
+    public void testSkylineOfFlatBuffersTreeAgreesWithDefault() throws Exception {
+        List<Entry<Integer, Point>> entries = new ArrayList<Entry<Integer, Point>>();
+        for (int i = 0; i < 1000; i++) {
+            entries.add(
+                    Entries.entry(i, Geometries.point(Math.random() * 100, Math.random() * 100)));
+        }
+        RTree<Integer, Point> tree = RTree.star().maxChildren(4).create(entries);
+        Serializer<Integer, Point> serializer = SerializerFlatBuffers.create(
+                n -> ByteBuffer.allocate(4).putInt(n).array(), b -> ByteBuffer.wrap(b).getInt());
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        serializer.write(tree, os);
+        byte[] bytes = os.toByteArray();
+        Set<Integer> expected = new HashSet<Integer>(
+                tree.skyline().map(Entry::value).toList().toBlocking().single());
+        for (InternalStructure structure : InternalStructure.values()) {
+            RTree<Integer, Point> tr = serializer.read(new ByteArrayInputStream(bytes),
+                    bytes.length, structure);
+            assertEquals(expected, new HashSet<Integer>(
+                    tr.skyline().map(Entry::value).toList().toBlocking().single()));
+        }
+    }
+
+    @Test
+    public void testEntryCountBeyondIntRangeFallsBackToCountingChildren() {
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        Func1<Object, byte[]> serializer = x -> EMPTY;
+        int leaf1 = FlatBuffersHelper.addEntries(
+                Arrays.asList(Entries.entry((Object) 1, Geometries.point(1, 1)),
+                        Entries.entry((Object) 2, Geometries.point(2, 2))),
+                builder, serializer);
+        int leaf2 = FlatBuffersHelper.addEntries(
+                Arrays.asList(Entries.entry((Object) 3, Geometries.point(3, 3))), builder,
+                serializer);
+        int children = Node_.createChildrenVector(builder, new int[] { leaf1, leaf2 });
+        Node_.startNode_(builder);
+        Node_.addChildren(builder, children);
+        Node_.addEntryCount(builder, 0xFFFFFFFFL);
+        builder.finish(Node_.endNode_(builder));
+        Node_ node = Node_.getRootAsNode_(builder.dataBuffer());
+        assertEquals(0xFFFFFFFFL, node.entryCount());
+        assertEquals(3, new NonLeafFlatBuffers<Object, Point>(node, null, x -> null).entryCount());
+    }
+
     @Test(expected = RuntimeException.class)
     public void testInputStreamNotAsLongAsExpected() throws IOException {
         SerializerFlatBuffers.readFully(new ByteArrayInputStream(new byte[10]), 12);
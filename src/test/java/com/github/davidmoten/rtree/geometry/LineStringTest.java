@@ -0,0 +1,57 @@
+package com.github.davidmoten.rtree.geometry;
+
+import static com.github.davidmoten.rtree.geometry.Geometries.point;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public final class LineStringTest {
+
+    private static final double PRECISION = 0.00001;
+
+    // an L shape
+    private static final LineString L = Geometries.lineString(0, 10, 0, 0, 10, 0);
+
+    @Test
+    public void testMbr() {
+        Rectangle mbr = L.mbr();
+        assertEquals(0, mbr.x1(), PRECISION);
+        assertEquals(0, mbr.y1(), PRECISION);
+        assertEquals(10, mbr.x2(), PRECISION);
+        assertEquals(10, mbr.y2(), PRECISION);
+    }
+
+    @Test
+    public void testDistanceIsToNearestSegmentNotMbr() {
+        // inside the mbr but away from both segments
+        assertEquals(4, L.distance(Geometries.rectangle(4, 4, 6, 6)), PRECISION);
+        assertEquals(0, L.distance(Geometries.rectangle(-1, 4, 1, 6)), PRECISION);
+        assertEquals(5, L.distance(Geometries.rectangle(13, 4, 14, 6)), PRECISION);
+        assertEquals(Math.sqrt(2), L.distance(point(11, 1)), PRECISION);
+    }
+
+    @Test
+    public void testIntersects() {
+        assertTrue(L.intersects(Geometries.rectangle(5, -1, 6, 1)));
+        assertFalse(L.intersects(Geometries.rectangle(4, 4, 6, 6)));
+    }
+
+    @Test
+    public void testLineStringFromPoints() {
+        LineString s = Geometries.lineString(asList(point(0, 10), point(0, 0), point(10, 0)));
+        assertEquals(3, s.size());
+        assertEquals(10, s.x(2), PRECISION);
+        assertEquals(10, s.y(0), PRECISION);
+        assertEquals(L, s);
+        assertEquals(L.hashCode(), s.hashCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLineStringNeedsTwoVertices() {
+        Geometries.lineString(0, 0);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.github.davidmoten.rtree.geometry;
+
+import static com.github.davidmoten.rtree.geometry.Geometries.point;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public final class PolygonTest {
+
+    private static final double PRECISION = 0.00001;
+
+    // a U shape open at the top, the gap is x in (1, 2) and y > 1
+    private static final Polygon U = Geometries.polygon(0, 0, 3, 0, 3, 3, 2, 3, 2, 1, 1, 1, 1, 3,
+            0, 3);
+
+    @Test
+    public void testContainsPoint() {
+        assertTrue(U.contains(0.5, 2));
+        assertTrue(U.contains(2.5, 0.5));
+        assertFalse(U.contains(1.5, 2));
+        assertFalse(U.contains(4, 1));
+    }
+
+    @Test
+    public void testContainsPointOnBoundary() {
+        assertTrue(U.contains(0, 1));
+        assertTrue(U.contains(1.5, 1));
+        assertTrue(U.contains(2, 3));
+    }
+
+    @Test
+    public void testIntersectsRectangle() {
+        assertTrue(U.intersects(Geometries.rectangle(0.2, 0.2, 0.8, 0.8)));
+        // rectangle in the gap
+        assertFalse(U.intersects(Geometries.rectangle(1.2, 1.5, 1.8, 2.5)));
+        // rectangle containing the polygon
+        assertTrue(U.intersects(Geometries.rectangle(-1, -1, 4, 4)));
+        // rectangle crossing an edge
+        assertTrue(U.intersects(Geometries.rectangle(1.5, 1.5, 2.5, 2.5)));
+    }
+
+    @Test
+    public void testContainsRectangle() {
+        assertTrue(U.contains(Geometries.rectangle(0.2, 0.2, 0.8, 2.5)));
+        assertFalse(U.contains(Geometries.rectangle(0.2, 0.2, 2.5, 2.5)));
+        assertFalse(U.contains(Geometries.rectangle(-1, -1, 4, 4)));
+    }
+
+    @Test
+    public void testIntersectsLine() {
+        assertTrue(U.intersects(Geometries.line(1.5, 2, 2.5, 2)));
+        assertFalse(U.intersects(Geometries.line(1.5, 1.5, 1.5, 2.5)));
+    }
+
+    @Test
+    public void testIntersectsCircle() {
+        assertTrue(U.intersects(Geometries.circle(1.5, 2, 0.6)));
+        assertFalse(U.intersects(Geometries.circle(1.5, 2, 0.4)));
+    }
+
+    @Test
+    public void testIntersectsPoint() {
+        assertTrue(Intersects.geometryIntersectsPolygon.call(point(0.5, 0.5), U));
+        assertFalse(Intersects.geometryIntersectsPolygon.call(point(1.5, 2), U));
+    }
+
+    @Test
+    public void testMbrAndDistance() {
+        Rectangle mbr = U.mbr();
+        assertEquals(0, mbr.x1(), PRECISION);
+        assertEquals(0, mbr.y1(), PRECISION);
+        assertEquals(3, mbr.x2(), PRECISION);
+        assertEquals(3, mbr.y2(), PRECISION);
+        assertEquals(0, U.distance(Geometries.rectangle(2.5, 2.5, 5, 5)), PRECISION);
+        assertEquals(0.3, U.distance(Geometries.rectangle(1.3, 2, 1.7, 2.5)), PRECISION);
+        assertEquals(1, U.distance(Geometries.rectangle(4, 0, 5, 1)), PRECISION);
+    }
+
+    @Test
+    public void testPolygonFromPoints() {
+        Polygon p = Geometries.polygon(asList(point(0, 0), point(1, 0), point(0, 1)));
+        assertEquals(3, p.size());
+        assertEquals(1, p.x(1), PRECISION);
+        assertEquals(1, p.y(2), PRECISION);
+        assertEquals(p, Geometries.polygon(0, 0, 1, 0, 0, 1));
+        assertEquals(p.hashCode(), Geometries.polygon(0, 0, 1, 0, 0, 1).hashCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPolygonNeedsThreeVertices() {
+        Geometries.polygon(0, 0, 1, 1);
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.github.davidmoten.rtree.geometry;
+
+import static com.github.davidmoten.rtree.geometry.Geometries.circle;
+import static com.github.davidmoten.rtree.geometry.Geometries.line;
+import static com.github.davidmoten.rtree.geometry.Geometries.point;
+import static com.github.davidmoten.rtree.geometry.Geometries.rectangle;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public final class RayTest {
+
+    private static final double PRECISION = 0.00001;
+
+    private static final double MISS = Double.POSITIVE_INFINITY;
+
+    // along y = 5 in the positive x direction
+    private static final Ray RAY = Geometries.ray(0, 5, 2, 0);
+
+    @Test
+    public void testDirectionIsNormalized() {
+        Ray ray = Geometries.ray(1, 2, 3, 4);
+        assertEquals(0.6, ray.dx(), PRECISION);
+        assertEquals(0.8, ray.dy(), PRECISION);
+        assertEquals(5, ray.hit(point(4, 6)), PRECISION);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroDirectionThrows() {
+        Geometries.ray(1, 2, 0, 0);
+    }
+
+    @Test
+    public void testRectangle() {
+        assertEquals(2, RAY.hit(rectangle(2, 0, 4, 10)), PRECISION);
+        assertEquals(0, RAY.hit(rectangle(-1, 4, 1, 6)), PRECISION);
+        assertEquals(MISS, RAY.hit(rectangle(-5, 4, -3, 6)), PRECISION);
+        assertEquals(MISS, RAY.hit(rectangle(2, 6, 4, 10)), PRECISION);
+    }
+
+    @Test
+    public void testDiagonalRayAndRectangle() {
+        Ray ray = Geometries.ray(0, 0, 1, 1);
+        assertEquals(Math.sqrt(2), ray.hit(rectangle(1, 1, 2, 2)), PRECISION);
+        // passes below the corner (1, 2)
+        assertEquals(MISS, ray.hit(rectangle(0, 2, 1, 3)), PRECISION);
+    }
+
+    @Test
+    public void testPoint() {
+        assertEquals(7, RAY.hit(point(7, 5)), PRECISION);
+        assertEquals(MISS, RAY.hit(point(7, 5.1)), PRECISION);
+        assertEquals(MISS, RAY.hit(point(-7, 5)), PRECISION);
+    }
+
+    @Test
+    public void testCircle() {
+        assertEquals(9, RAY.hit(circle(10, 5, 1)), PRECISION);
+        assertEquals(0, RAY.hit(circle(0, 5, 1)), PRECISION);
+        assertEquals(MISS, RAY.hit(circle(-10, 5, 1)), PRECISION);
+        assertEquals(MISS, RAY.hit(circle(10, 7, 1)), PRECISION);
+    }
+
+    @Test
+    public void testLine() {
+        assertEquals(6, RAY.hit(line(6, 0, 6, 10)), PRECISION);
+        assertEquals(MISS, RAY.hit(line(6, 6, 6, 10)), PRECISION);
+        // collinear
+        assertEquals(3, RAY.hit(line(7, 5, 3, 5)), PRECISION);
+        assertEquals(0, RAY.hit(line(-1, 5, 1, 5)), PRECISION);
+        assertEquals(MISS, RAY.hit(line(-3, 5, -1, 5)), PRECISION);
+    }
+
+    @Test
+    public void testPolygon() {
+        Polygon triangle = Geometries.polygon(12, 0, 14, 10, 16, 0);
+        assertEquals(13, RAY.hit(triangle), PRECISION);
+        assertEquals(0, Geometries.ray(14, 2, 1, 0).hit(triangle), PRECISION);
+    }
+
+    @Test
+    public void testLineStringIsHitAtNearestSegment() {
+        LineString zigzag = Geometries.lineString(4, 0, 6, 10, 8, 0);
+        assertEquals(5, RAY.hit(zigzag), PRECISION);
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.github.davidmoten.rtree.geometry.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.github.davidmoten.junit.Asserts;
+
+public class GeographicUtilTest {
+
+    private static final double PRECISION = 1;
+
+    @Test
+    public void isUtilityClass() {
+        Asserts.assertIsUtilityClass(GeographicUtil.class);
+    }
+
+    @Test
+    public void testDistanceBetweenPoints() {
+        // Sydney to Canberra is about 250km
+        assertEquals(249700, GeographicUtil.distanceMetres(151.2094, -33.86, 149.1244, -35.3075),
+                1000);
+    }
+
+    @Test
+    public void testDistanceOfOneDegreeOfLatitude() {
+        assertEquals(GeographicUtil.EARTH_RADIUS_METRES * Math.PI / 180,
+                GeographicUtil.distanceMetres(20, 10, 20, 11), PRECISION);
+    }
+
+    @Test
+    public void testDistanceAcrossAntimeridian() {
+        assertEquals(GeographicUtil.distanceMetres(-0.5, 0, 0.5, 0),
+                GeographicUtil.distanceMetres(179.5, 0, -179.5, 0), PRECISION);
+    }
+
+    @Test
+    public void testDistanceToRectangleContainingPoint() {
+        assertEquals(0, GeographicUtil.distanceMetres(5, 5, 0, 0, 10, 10), 0);
+    }
+
+    @Test
+    public void testDistanceToRectangleDirectlyNorth() {
+        assertEquals(GeographicUtil.distanceMetres(5, 5, 5, 20),
+                GeographicUtil.distanceMetres(5, 5, 0, 20, 10, 30), PRECISION);
+    }
+
+    @Test
+    public void testDistanceToRectangleAcrossAntimeridian() {
+        // rectangle from 170 to 190 (-170) contains longitude -175
+        assertEquals(0, GeographicUtil.distanceMetres(-175, 5, 170, 0, 190, 10), 0);
+        assertEquals(GeographicUtil.distanceMetres(-179, 5, 179, 5),
+                GeographicUtil.distanceMetres(-179, 5, 160, 0, 179, 10), PRECISION);
+    }
+
+    @Test
+    public void testDistanceToRectangleUsesCrossTrackDistanceToEdge() {
+        // on the equator the nearest point of a meridian is on the equator
+        assertEquals(GeographicUtil.distanceMetres(0, 0, 10, 0),
+                GeographicUtil.distanceMetres(0, 0, 10, -10, 20, 10), PRECISION);
+        // at high latitude the nearest point of the edge is poleward of the
+        // query latitude so the distance is less than along the parallel
+        double d = GeographicUtil.distanceMetres(0, 60, 30, 50, 40, 80);
+        assertEquals(GeographicUtil.EARTH_RADIUS_METRES
+                * Math.asin(Math.sin(Math.toRadians(30)) * Math.cos(Math.toRadians(60))), d,
+                PRECISION);
+    }
+
+    @Test
+    public void testDistanceToRectangleTouchingPole() {
+        assertEquals(GeographicUtil.distanceMetres(0, 80, 0, 90),
+                GeographicUtil.distanceMetres(0, 80, 100, 85, 110, 90), 1000);
+    }
+
+}